@@ -0,0 +1,102 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.util.LruCache;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide LRU cache of marker and cap icons, keyed by the Dart descriptor.
+ *
+ * <p>Image bytes are keyed by a hash of their content, so markers that share an icon share one
+ * decoded bitmap no matter how often the bytes are sent. The cache is bounded by the memory of
+ * the bitmaps it holds and is safe to use from any thread.
+ */
+class BitmapDescriptorCache {
+  private static final int MAX_BYTES = 8 * 1024 * 1024;
+  // Descriptors that the Maps SDK resolves lazily, such as assets, hold no bitmap of ours.
+  static final int UNDECODED_ENTRY_BYTES = 1024;
+
+  private static BitmapDescriptorCache instance;
+
+  private static final class Entry {
+    final BitmapDescriptor descriptor;
+    final int sizeBytes;
+
+    Entry(BitmapDescriptor descriptor, int sizeBytes) {
+      this.descriptor = descriptor;
+      this.sizeBytes = sizeBytes;
+    }
+  }
+
+  private final LruCache<String, Entry> cache;
+
+  static synchronized BitmapDescriptorCache getInstance() {
+    if (instance == null) {
+      instance =
+          new BitmapDescriptorCache(
+              (int) Math.min(MAX_BYTES, Runtime.getRuntime().maxMemory() / 32));
+    }
+    return instance;
+  }
+
+  private BitmapDescriptorCache(int maxBytes) {
+    cache =
+        new LruCache<String, Entry>(maxBytes) {
+          @Override
+          protected int sizeOf(String key, Entry entry) {
+            return entry.sizeBytes;
+          }
+        };
+  }
+
+  /** Returns the cache key of a Dart bitmap descriptor such as {@code ["fromBytes", bytes]}. */
+  static String key(List<?> data) {
+    if ("fromBytes".equals(data.get(0)) && data.size() == 2 && data.get(1) instanceof byte[]) {
+      return "fromBytes:" + sha1((byte[]) data.get(1));
+    }
+    return data.toString();
+  }
+
+  BitmapDescriptor get(String key) {
+    final Entry entry = cache.get(key);
+    return entry == null ? null : entry.descriptor;
+  }
+
+  void put(String key, BitmapDescriptor descriptor, int sizeBytes) {
+    cache.put(key, new Entry(descriptor, sizeBytes));
+  }
+
+  /** Hit and miss counts since the process started, along with the current size in bytes. */
+  Map<String, Object> getStats() {
+    final Map<String, Object> stats = new HashMap<>();
+    stats.put("hits", cache.hitCount());
+    stats.put("misses", cache.missCount());
+    stats.put("evictions", cache.evictionCount());
+    stats.put("sizeBytes", cache.size());
+    stats.put("maxSizeBytes", cache.maxSize());
+    return stats;
+  }
+
+  private static String sha1(byte[] data) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-1").digest(data);
+      final StringBuilder builder = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        builder.append(Character.forDigit((b >> 4) & 0xf, 16));
+        builder.append(Character.forDigit(b & 0xf, 16));
+      }
+      return builder.toString();
+    } catch (NoSuchAlgorithmException e) {
+      // SHA-1 is guaranteed to be available.
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,136 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Byte-bounded pool of mutable bitmaps that are reused as {@link BitmapFactory.Options#inBitmap}
+ * when decoding overlay images.
+ */
+class BitmapPool {
+  private final int maxBytes;
+  // Least recently released first. Guarded by this.
+  private final LinkedList<Bitmap> bitmaps = new LinkedList<>();
+  private int bytes;
+
+  BitmapPool(int maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /** Hands a bitmap that is no longer referenced anywhere over to the pool. */
+  synchronized void put(Bitmap bitmap) {
+    if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable() || bitmaps.contains(bitmap)) {
+      return;
+    }
+    final int size = sizeOf(bitmap);
+    if (size > maxBytes) {
+      return;
+    }
+    bitmaps.addLast(bitmap);
+    bytes += size;
+    while (bytes > maxBytes) {
+      bytes -= sizeOf(bitmaps.removeFirst());
+    }
+  }
+
+  /** Removes and returns a bitmap that an image of the given size can be decoded into. */
+  synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+    final Iterator<Bitmap> iterator = bitmaps.iterator();
+    while (iterator.hasNext()) {
+      final Bitmap candidate = iterator.next();
+      if (canReuse(candidate, width, height, config)) {
+        iterator.remove();
+        bytes -= sizeOf(candidate);
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  synchronized void clear() {
+    bitmaps.clear();
+    bytes = 0;
+  }
+
+  /**
+   * Decodes an image no larger than needed to fill {@code targetWidth} x {@code targetHeight}
+   * pixels, reusing a pooled bitmap when possible.
+   *
+   * @param opaque whether the image has no transparency and can be decoded as RGB_565.
+   */
+  Bitmap decode(byte[] data, int targetWidth, int targetHeight, boolean opaque) {
+    final BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inJustDecodeBounds = true;
+    BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    if (options.outWidth <= 0 || options.outHeight <= 0) {
+      return null;
+    }
+    options.inJustDecodeBounds = false;
+    options.inSampleSize =
+        sampleSize(options.outWidth, options.outHeight, targetWidth, targetHeight);
+    options.inPreferredConfig = opaque ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+    options.inMutable = true;
+    // Before KitKat, inBitmap only works for same-sized, unsampled decodes.
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT || options.inSampleSize == 1) {
+      final int width = ceilDiv(options.outWidth, options.inSampleSize);
+      final int height = ceilDiv(options.outHeight, options.inSampleSize);
+      options.inBitmap = get(width, height, options.inPreferredConfig);
+    }
+    try {
+      return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    } catch (IllegalArgumentException e) {
+      // The pooled bitmap turned out to be incompatible with the image.
+      put(options.inBitmap);
+      options.inBitmap = null;
+      return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    }
+  }
+
+  /** The largest power of two that keeps the image at least as large as the target. */
+  private static int sampleSize(int width, int height, int targetWidth, int targetHeight) {
+    int sampleSize = 1;
+    if (targetWidth <= 0 || targetHeight <= 0) {
+      return sampleSize;
+    }
+    while (width / (sampleSize * 2) >= targetWidth && height / (sampleSize * 2) >= targetHeight) {
+      sampleSize *= 2;
+    }
+    return sampleSize;
+  }
+
+  private static int ceilDiv(int value, int divisor) {
+    return (value + divisor - 1) / divisor;
+  }
+
+  private static boolean canReuse(Bitmap candidate, int width, int height, Bitmap.Config config) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+      return width * height * bytesPerPixel(config) <= candidate.getAllocationByteCount();
+    }
+    return candidate.getWidth() == width
+        && candidate.getHeight() == height
+        && candidate.getConfig() == config;
+  }
+
+  private static int bytesPerPixel(Bitmap.Config config) {
+    if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+      return 2;
+    } else if (config == Bitmap.Config.ALPHA_8) {
+      return 1;
+    }
+    return 4;
+  }
+
+  static int sizeOf(Bitmap bitmap) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+      return bitmap.getAllocationByteCount();
+    }
+    return bitmap.getByteCount();
+  }
+}
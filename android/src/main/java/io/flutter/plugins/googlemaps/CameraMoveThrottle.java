@@ -0,0 +1,111 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.os.SystemClock;
+import com.google.android.gms.maps.model.CameraPosition;
+import com.google.android.gms.maps.model.LatLng;
+
+/**
+ * Decides which camera moves are sent to Dart as {@code camera#onMove}.
+ *
+ * <p>A move is sent only once the minimum interval has passed since the previous one and the
+ * camera zoomed, panned, rotated or tilted by more than the thresholds. Moves that were held back
+ * are coalesced into the position the camera settles at, which is sent when it becomes idle.
+ */
+class CameraMoveThrottle {
+  private static final double WORLD_SIZE_DP = 256;
+
+  private final long minIntervalMillis;
+  private final double minZoomDelta;
+  private final double minPixelDelta;
+  private final boolean onlyOnIdle;
+  private CameraPosition lastSent;
+  private long lastSentMillis;
+  // Whether a move was held back since the last one sent.
+  private boolean pending;
+
+  /**
+   * @param maxEventsPerSecond zero for no limit.
+   * @param minPixelDelta in density independent pixels.
+   * @param onlyOnIdle send just the position the camera settles at.
+   */
+  CameraMoveThrottle(
+      int maxEventsPerSecond, double minZoomDelta, double minPixelDelta, boolean onlyOnIdle) {
+    this.minIntervalMillis = maxEventsPerSecond > 0 ? 1000 / maxEventsPerSecond : 0;
+    this.minZoomDelta = minZoomDelta;
+    this.minPixelDelta = minPixelDelta;
+    this.onlyOnIdle = onlyOnIdle;
+  }
+
+  /** Returns whether both throttles apply the same limits, regardless of what they sent. */
+  boolean hasSameLimits(CameraMoveThrottle other) {
+    return minIntervalMillis == other.minIntervalMillis
+        && minZoomDelta == other.minZoomDelta
+        && minPixelDelta == other.minPixelDelta
+        && onlyOnIdle == other.onlyOnIdle;
+  }
+
+  /** Returns whether the move should be sent, recording it as sent if so. */
+  boolean onMove(CameraPosition position) {
+    final long nowMillis = SystemClock.uptimeMillis();
+    if (onlyOnIdle
+        || (lastSent != null
+            && (nowMillis - lastSentMillis < minIntervalMillis || !movedEnough(position)))) {
+      pending = true;
+      return false;
+    }
+    record(position, nowMillis);
+    return true;
+  }
+
+  /** Returns whether the position the camera settled at was held back and should be sent now. */
+  boolean onIdle(CameraPosition position) {
+    if (!pending || position.equals(lastSent)) {
+      pending = false;
+      return false;
+    }
+    record(position, SystemClock.uptimeMillis());
+    return true;
+  }
+
+  private void record(CameraPosition position, long nowMillis) {
+    lastSent = position;
+    lastSentMillis = nowMillis;
+    pending = false;
+  }
+
+  private boolean movedEnough(CameraPosition position) {
+    if (position.bearing != lastSent.bearing || position.tilt != lastSent.tilt) {
+      return true;
+    }
+    final double zoomDelta = Math.abs(position.zoom - lastSent.zoom);
+    if (zoomDelta > 0 && zoomDelta >= minZoomDelta) {
+      return true;
+    }
+    final double pixelDelta = pixelDistance(lastSent.target, position.target, position.zoom);
+    return pixelDelta > 0 && pixelDelta >= minPixelDelta;
+  }
+
+  /** Returns the on-screen distance between the positions in density independent pixels. */
+  private static double pixelDistance(LatLng from, LatLng to, float zoom) {
+    double dx = Math.abs(worldX(to) - worldX(from));
+    if (dx > 0.5) {
+      // Shorter across the antimeridian.
+      dx = 1 - dx;
+    }
+    final double dy = worldY(to) - worldY(from);
+    return Math.hypot(dx, dy) * WORLD_SIZE_DP * Math.pow(2, zoom);
+  }
+
+  private static double worldX(LatLng position) {
+    return (position.longitude + 180) / 360;
+  }
+
+  private static double worldY(LatLng position) {
+    final double sin = Math.sin(Math.toRadians(position.latitude));
+    return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+  }
+}
@@ -10,13 +10,11 @@ import com.google.android.gms.maps.model.LatLng;
 /** Controller of a single Circle on the map. */
 class CircleController implements CircleOptionsSink {
   private final Circle circle;
-  private final String googleMapsCircleId;
   private boolean consumeTapEvents;
 
   CircleController(Circle circle, boolean consumeTapEvents) {
     this.circle = circle;
     this.consumeTapEvents = consumeTapEvents;
-    this.googleMapsCircleId = circle.getId();
   }
 
   void remove() {
@@ -64,10 +62,6 @@ class CircleController implements CircleOptionsSink {
     circle.setZIndex(zIndex);
   }
 
-  String getGoogleMapsCircleId() {
-    return googleMapsCircleId;
-  }
-
   boolean consumeTapEvents() {
     return consumeTapEvents;
   }
@@ -8,20 +8,16 @@ import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.model.Circle;
 import com.google.android.gms.maps.model.CircleOptions;
 import io.flutter.plugin.common.MethodChannel;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 class CirclesController {
 
-  private final Map<String, CircleController> circleIdToController;
-  private final Map<String, String> googleMapsCircleIdToDartCircleId;
+  private final HandleTable<CircleController> circles = new HandleTable<>();
   private final MethodChannel methodChannel;
   private GoogleMap googleMap;
 
   CirclesController(MethodChannel methodChannel) {
-    this.circleIdToController = new HashMap<>();
-    this.googleMapsCircleIdToDartCircleId = new HashMap<>();
     this.methodChannel = methodChannel;
   }
 
@@ -29,6 +25,11 @@ class CirclesController {
     this.googleMap = googleMap;
   }
 
+  /** The number of circles on the map. */
+  int size() {
+    return circles.size();
+  }
+
   void addCircles(List<Object> circlesToAdd) {
     if (circlesToAdd != null) {
       for (Object circleToAdd : circlesToAdd) {
@@ -54,25 +55,24 @@ class CirclesController {
         continue;
       }
       String circleId = (String) rawCircleId;
-      final CircleController circleController = circleIdToController.remove(circleId);
+      final CircleController circleController = circles.remove(circleId);
       if (circleController != null) {
         circleController.remove();
-        googleMapsCircleIdToDartCircleId.remove(circleController.getGoogleMapsCircleId());
       }
     }
   }
 
-  boolean onCircleTap(String googleCircleId) {
-    String circleId = googleMapsCircleIdToDartCircleId.get(googleCircleId);
-    if (circleId == null) {
+  boolean onCircleTap(Circle googleCircle) {
+    if (!(googleCircle.getTag() instanceof Integer)) {
       return false;
     }
-    methodChannel.invokeMethod("circle#onTap", Convert.circleIdToJson(circleId));
-    CircleController circleController = circleIdToController.get(circleId);
-    if (circleController != null) {
-      return circleController.consumeTapEvents();
+    final int handle = (Integer) googleCircle.getTag();
+    final CircleController circleController = circles.get(handle);
+    if (circleController == null) {
+      return false;
     }
-    return false;
+    methodChannel.invokeMethod("circle#onTap", Convert.circleIdToJson(circles.idOf(handle)));
+    return circleController.consumeTapEvents();
   }
 
   private void addCircle(Object circle) {
@@ -88,8 +88,7 @@ class CirclesController {
   private void addCircle(String circleId, CircleOptions circleOptions, boolean consumeTapEvents) {
     final Circle circle = googleMap.addCircle(circleOptions);
     CircleController controller = new CircleController(circle, consumeTapEvents);
-    circleIdToController.put(circleId, controller);
-    googleMapsCircleIdToDartCircleId.put(circle.getId(), circleId);
+    circle.setTag(circles.put(circleId, controller));
   }
 
   private void changeCircle(Object circle) {
@@ -97,7 +96,7 @@ class CirclesController {
       return;
     }
     String circleId = getCircleId(circle);
-    CircleController circleController = circleIdToController.get(circleId);
+    CircleController circleController = circles.get(circleId);
     if (circleController != null) {
       Convert.interpretCircleOptions(circle, circleController);
     }
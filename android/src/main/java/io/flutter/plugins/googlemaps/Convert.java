@@ -24,55 +24,97 @@ import com.google.android.gms.maps.model.PatternItem;
 import com.google.android.gms.maps.model.RoundCap;
 import com.google.android.gms.maps.model.SquareCap;
 import io.flutter.view.FlutterMain;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONException;
 
 /** Conversions between JSON-like values and GoogleMaps data types. */
 class Convert {
 
+  /** Returns the registered icon the Dart icon refers to, or null if it is another kind of icon. */
+  static BitmapDescriptor toRegisteredIcon(Object o) {
+    final List<?> data = toList(o);
+    if (!"fromHandle".equals(data.get(0))) {
+      return null;
+    }
+    final BitmapDescriptor registered = IconRegistry.getInstance().get(toInt(data.get(1)));
+    if (registered == null) {
+      throw new IllegalArgumentException("Cannot interpret " + o + " as a registered icon");
+    }
+    return registered;
+  }
+
   private static BitmapDescriptor toBitmapDescriptor(Object o) {
+    final BitmapDescriptor registered = toRegisteredIcon(o);
+    if (registered != null) {
+      return registered;
+    }
     final List<?> data = toList(o);
+    final BitmapDescriptorCache cache = BitmapDescriptorCache.getInstance();
+    final String cacheKey = BitmapDescriptorCache.key(data);
+    final BitmapDescriptor cached = cache.get(cacheKey);
+    if (cached != null) {
+      return cached;
+    }
+    final BitmapDescriptor descriptor;
     switch (toString(data.get(0))) {
       case "defaultMarker":
         if (data.size() == 1) {
-          return BitmapDescriptorFactory.defaultMarker();
+          descriptor = BitmapDescriptorFactory.defaultMarker();
         } else {
-          return BitmapDescriptorFactory.defaultMarker(toFloat(data.get(1)));
+          descriptor = BitmapDescriptorFactory.defaultMarker(toFloat(data.get(1)));
         }
+        break;
       case "fromAsset":
         if (data.size() == 2) {
-          return BitmapDescriptorFactory.fromAsset(
-              FlutterMain.getLookupKeyForAsset(toString(data.get(1))));
+          descriptor =
+              BitmapDescriptorFactory.fromAsset(
+                  FlutterMain.getLookupKeyForAsset(toString(data.get(1))));
         } else {
-          return BitmapDescriptorFactory.fromAsset(
-              FlutterMain.getLookupKeyForAsset(toString(data.get(1)), toString(data.get(2))));
+          descriptor =
+              BitmapDescriptorFactory.fromAsset(
+                  FlutterMain.getLookupKeyForAsset(toString(data.get(1)), toString(data.get(2))));
         }
+        break;
       case "fromAssetImage":
         if (data.size() == 3) {
-          return BitmapDescriptorFactory.fromAsset(
-              FlutterMain.getLookupKeyForAsset(toString(data.get(1))));
+          descriptor =
+              BitmapDescriptorFactory.fromAsset(
+                  FlutterMain.getLookupKeyForAsset(toString(data.get(1))));
         } else {
           throw new IllegalArgumentException(
               "'fromAssetImage' Expected exactly 3 arguments, got: " + data.size());
         }
+        break;
       case "fromBytes":
-        return getBitmapFromBytes(data);
+        return getBitmapFromBytes(data, cacheKey);
       default:
         throw new IllegalArgumentException("Cannot interpret " + o + " as BitmapDescriptor");
     }
+    cache.put(cacheKey, descriptor, BitmapDescriptorCache.UNDECODED_ENTRY_BYTES);
+    return descriptor;
   }
 
-  private static BitmapDescriptor getBitmapFromBytes(List<?> data) {
+  private static BitmapDescriptor getBitmapFromBytes(List<?> data, String cacheKey) {
     if (data.size() == 2) {
+      final BitmapDescriptor descriptor;
+      final int sizeBytes;
       try {
         Bitmap bitmap = toBitmap(data.get(1));
-        return BitmapDescriptorFactory.fromBitmap(bitmap);
+        descriptor = BitmapDescriptorFactory.fromBitmap(bitmap);
+        sizeBytes = BitmapPool.sizeOf(bitmap);
       } catch (Exception e) {
         throw new IllegalArgumentException("Unable to interpret bytes as a valid image.", e);
       }
+      BitmapDescriptorCache.getInstance().put(cacheKey, descriptor, sizeBytes);
+      return descriptor;
     } else {
       throw new IllegalArgumentException(
           "fromBytes should have exactly one argument, the bytes. Got: " + data.size());
@@ -312,6 +354,16 @@ class Convert {
     if (trackCameraPosition != null) {
       sink.setTrackCameraPosition(toBoolean(trackCameraPosition));
     }
+    final Object cameraMoveThrottle = data.get("cameraMoveThrottle");
+    if (cameraMoveThrottle != null) {
+      final List<?> throttleData = toList(cameraMoveThrottle);
+      sink.setCameraMoveThrottle(
+          new CameraMoveThrottle(
+              toInt(throttleData.get(0)),
+              toDouble(throttleData.get(1)),
+              toDouble(throttleData.get(2)),
+              toBoolean(throttleData.get(3))));
+    }
     final Object zoomGesturesEnabled = data.get("zoomGesturesEnabled");
     if (zoomGesturesEnabled != null) {
       sink.setZoomGesturesEnabled(toBoolean(zoomGesturesEnabled));
@@ -332,6 +384,22 @@ class Convert {
     if (trafficEnabled != null) {
       sink.setTrafficEnabled(toBoolean(trafficEnabled));
     }
+    final Object markerClusteringEnabled = data.get("markerClusteringEnabled");
+    if (markerClusteringEnabled != null) {
+      sink.setMarkerClusteringEnabled(toBoolean(markerClusteringEnabled));
+    }
+    final Object markerCullingEnabled = data.get("markerCullingEnabled");
+    if (markerCullingEnabled != null) {
+      sink.setMarkerCullingEnabled(toBoolean(markerCullingEnabled));
+    }
+    final Object asyncMarkerIconDecodingEnabled = data.get("asyncMarkerIconDecodingEnabled");
+    if (asyncMarkerIconDecodingEnabled != null) {
+      sink.setAsyncMarkerIconDecodingEnabled(toBoolean(asyncMarkerIconDecodingEnabled));
+    }
+    final Object liteModeEnabled = data.get("liteModeEnabled");
+    if (liteModeEnabled != null) {
+      sink.setLiteModeEnabled(toBoolean(liteModeEnabled));
+    }
   }
 
   /** Returns the dartMarkerId of the interpreted marker. */
@@ -406,6 +474,68 @@ class Convert {
     }
   }
 
+  /**
+   * Returns the entries of {@code current} whose values differ from those in {@code previous},
+   * always keeping {@code idKey} so the result can still be interpreted as options.
+   *
+   * <p>Keys missing from {@code current} are ignored, as interpreting options never resets a
+   * property that is absent.
+   */
+  static Map<String, Object> changedOptions(Object previous, Object current, String idKey) {
+    final Map<?, ?> previousData = toMap(previous);
+    final Map<?, ?> currentData = toMap(current);
+    final Map<String, Object> changed = new HashMap<>();
+    for (Map.Entry<?, ?> entry : currentData.entrySet()) {
+      final String key = (String) entry.getKey();
+      if (key.equals(idKey) || !optionEquals(previousData.get(key), entry.getValue())) {
+        changed.put(key, entry.getValue());
+      }
+    }
+    return changed;
+  }
+
+  private static boolean optionEquals(Object a, Object b) {
+    if (a == b) {
+      return true;
+    }
+    if (a == null || b == null) {
+      return false;
+    }
+    if (a instanceof byte[] && b instanceof byte[]) {
+      return Arrays.equals((byte[]) a, (byte[]) b);
+    }
+    if (a instanceof double[] && b instanceof double[]) {
+      return Arrays.equals((double[]) a, (double[]) b);
+    }
+    if (a instanceof List && b instanceof List) {
+      final List<?> listA = (List<?>) a;
+      final List<?> listB = (List<?>) b;
+      if (listA.size() != listB.size()) {
+        return false;
+      }
+      for (int i = 0; i < listA.size(); i++) {
+        if (!optionEquals(listA.get(i), listB.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (a instanceof Map && b instanceof Map) {
+      final Map<?, ?> mapA = (Map<?, ?>) a;
+      final Map<?, ?> mapB = (Map<?, ?>) b;
+      if (mapA.size() != mapB.size()) {
+        return false;
+      }
+      for (Map.Entry<?, ?> entry : mapA.entrySet()) {
+        if (!optionEquals(entry.getValue(), mapB.get(entry.getKey()))) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return a.equals(b);
+  }
+
   static String interpretPolygonOptions(Object o, PolygonOptionsSink sink) {
     final Map<?, ?> data = toMap(o);
     final Object consumeTapEvents = data.get("consumeTapEvents");
@@ -544,17 +674,80 @@ class Convert {
     }
   }
 
-  private static List<LatLng> toPoints(Object o) {
+  /**
+   * Decodes polygon and polyline points, sent as a {@code Float64List} of interleaved latitudes
+   * and longitudes, or as a list of {@code [latitude, longitude]} pairs.
+   */
+  static List<LatLng> toPoints(Object o) {
+    if (o instanceof double[]) {
+      final double[] data = (double[]) o;
+      final List<LatLng> points = new ArrayList<>(data.length / 2);
+      for (int i = 0; i + 1 < data.length; i += 2) {
+        points.add(new LatLng(data[i], data[i + 1]));
+      }
+      return points;
+    }
     final List<?> data = toList(o);
     final List<LatLng> points = new ArrayList<>(data.size());
 
     for (Object ob : data) {
       final List<?> point = toList(ob);
-      points.add(new LatLng(toFloat(point.get(0)), toFloat(point.get(1))));
+      points.add(new LatLng(toDouble(point.get(0)), toDouble(point.get(1))));
     }
     return points;
   }
 
+  /**
+   * Decodes route geometry sent as interleaved lat/lng values.
+   *
+   * <p>Accepts a {@code Float64List} (decoded as {@code double[]}), a {@code Uint8List} view of
+   * packed native-order doubles (decoded as {@code byte[]}), or the legacy JSON text array.
+   */
+  static LatLng[] toRoutePoints(Object o) {
+    if (o instanceof double[]) {
+      return toRoutePoints((double[]) o);
+    }
+    if (o instanceof byte[]) {
+      return toRoutePoints((byte[]) o);
+    }
+    if (o instanceof String) {
+      return toRoutePoints((String) o);
+    }
+    throw new IllegalArgumentException("Cannot interpret " + o + " as route points");
+  }
+
+  private static LatLng[] toRoutePoints(double[] data) {
+    final LatLng[] points = new LatLng[data.length / 2];
+    for (int i = 0; i < points.length; i++) {
+      points[i] = new LatLng(data[2 * i], data[2 * i + 1]);
+    }
+    return points;
+  }
+
+  private static LatLng[] toRoutePoints(byte[] data) {
+    // Dart typed data is written in host byte order.
+    final DoubleBuffer buffer =
+        ByteBuffer.wrap(data).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+    final LatLng[] points = new LatLng[buffer.remaining() / 2];
+    for (int i = 0; i < points.length; i++) {
+      points[i] = new LatLng(buffer.get(2 * i), buffer.get(2 * i + 1));
+    }
+    return points;
+  }
+
+  private static LatLng[] toRoutePoints(String data) {
+    try {
+      final JSONArray jsonArray = new JSONArray(data);
+      final LatLng[] points = new LatLng[jsonArray.length() / 2];
+      for (int i = 0; i < points.length; i++) {
+        points[i] = new LatLng(jsonArray.getDouble(2 * i), jsonArray.getDouble(2 * i + 1));
+      }
+      return points;
+    } catch (JSONException e) {
+      throw new IllegalArgumentException("Cannot interpret " + data + " as route points", e);
+    }
+  }
+
   private static List<PatternItem> toPattern(Object o) {
     final List<?> data = toList(o);
 
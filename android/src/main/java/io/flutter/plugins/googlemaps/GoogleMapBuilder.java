@@ -15,14 +15,20 @@ import java.util.concurrent.atomic.AtomicInteger;
 class GoogleMapBuilder implements GoogleMapOptionsSink {
   private final GoogleMapOptions options = new GoogleMapOptions();
   private boolean trackCameraPosition = false;
+  private CameraMoveThrottle cameraMoveThrottle = new CameraMoveThrottle(0, 0, 0, false);
   private boolean myLocationEnabled = false;
   private boolean myLocationButtonEnabled = false;
   private boolean indoorEnabled = true;
   private boolean trafficEnabled = false;
+  private boolean markerClusteringEnabled = false;
+  private boolean markerCullingEnabled = false;
+  private boolean asyncMarkerIconDecodingEnabled = false;
+  private boolean liteModeEnabled = false;
   private Object initialMarkers;
   private Object initialPolygons;
   private Object initialPolylines;
   private Object initialCircles;
+  private int initialOverlaysFrameBudgetMillis;
   private Rect padding = new Rect(0, 0, 0, 0);
 
   GoogleMapController build(
@@ -34,11 +40,22 @@ class GoogleMapBuilder implements GoogleMapOptionsSink {
     controller.setMyLocationButtonEnabled(myLocationButtonEnabled);
     controller.setIndoorEnabled(indoorEnabled);
     controller.setTrafficEnabled(trafficEnabled);
+    controller.setMarkerClusteringEnabled(markerClusteringEnabled);
+    controller.setMarkerCullingEnabled(markerCullingEnabled);
+    controller.setAsyncMarkerIconDecodingEnabled(asyncMarkerIconDecodingEnabled);
+    controller.setLiteModeEnabled(liteModeEnabled);
     controller.setTrackCameraPosition(trackCameraPosition);
+    controller.setCameraMoveThrottle(cameraMoveThrottle);
     controller.setInitialMarkers(initialMarkers);
     controller.setInitialPolygons(initialPolygons);
     controller.setInitialPolylines(initialPolylines);
     controller.setInitialCircles(initialCircles);
+    controller.setInitialOverlaysFrameBudgetMillis(initialOverlaysFrameBudgetMillis);
+    // The controller owns the initial overlays now.
+    initialMarkers = null;
+    initialPolygons = null;
+    initialPolylines = null;
+    initialCircles = null;
     controller.setPadding(padding.top, padding.left, padding.bottom, padding.right);
     return controller;
   }
@@ -47,6 +64,10 @@ class GoogleMapBuilder implements GoogleMapOptionsSink {
     options.camera(position);
   }
 
+  void setInitialOverlaysFrameBudgetMillis(int initialOverlaysFrameBudgetMillis) {
+    this.initialOverlaysFrameBudgetMillis = initialOverlaysFrameBudgetMillis;
+  }
+
   @Override
   public void setCompassEnabled(boolean compassEnabled) {
     options.compassEnabled(compassEnabled);
@@ -87,6 +108,11 @@ class GoogleMapBuilder implements GoogleMapOptionsSink {
     this.trackCameraPosition = trackCameraPosition;
   }
 
+  @Override
+  public void setCameraMoveThrottle(CameraMoveThrottle cameraMoveThrottle) {
+    this.cameraMoveThrottle = cameraMoveThrottle;
+  }
+
   @Override
   public void setRotateGesturesEnabled(boolean rotateGesturesEnabled) {
     options.rotateGesturesEnabled(rotateGesturesEnabled);
@@ -117,6 +143,27 @@ class GoogleMapBuilder implements GoogleMapOptionsSink {
     this.trafficEnabled = trafficEnabled;
   }
 
+  @Override
+  public void setMarkerClusteringEnabled(boolean markerClusteringEnabled) {
+    this.markerClusteringEnabled = markerClusteringEnabled;
+  }
+
+  @Override
+  public void setMarkerCullingEnabled(boolean markerCullingEnabled) {
+    this.markerCullingEnabled = markerCullingEnabled;
+  }
+
+  @Override
+  public void setAsyncMarkerIconDecodingEnabled(boolean asyncMarkerIconDecodingEnabled) {
+    this.asyncMarkerIconDecodingEnabled = asyncMarkerIconDecodingEnabled;
+  }
+
+  @Override
+  public void setLiteModeEnabled(boolean liteModeEnabled) {
+    this.liteModeEnabled = liteModeEnabled;
+    options.liteMode(liteModeEnabled);
+  }
+
   @Override
   public void setMyLocationEnabled(boolean myLocationEnabled) {
     this.myLocationEnabled = myLocationEnabled;
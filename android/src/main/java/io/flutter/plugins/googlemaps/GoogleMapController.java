@@ -19,10 +19,7 @@ import android.app.Dialog;
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Color;
 import android.graphics.Point;
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
@@ -48,18 +45,15 @@ import com.google.android.gms.maps.model.Polygon;
 import com.google.android.gms.maps.model.Polyline;
 import com.google.android.gms.maps.model.LatLngBounds.Builder;
 import com.google.android.gms.maps.model.PolylineOptions;
-
-import org.json.JSONArray;
-import org.json.JSONException;
+import com.google.android.gms.maps.model.TileOverlay;
+import com.google.android.gms.maps.model.TileOverlayOptions;
 
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugin.common.PluginRegistry;
 import io.flutter.plugin.platform.PlatformView;
 
-import java.net.URL;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -84,20 +78,30 @@ final class GoogleMapController
         GoogleMap.OnMapClickListener,
         GoogleMap.OnMapLongClickListener,
         GoogleMap.OnMarkerDragListener,
-        PlatformView {
+        PlatformView,
+        OverlayFetchScheduler.Listener,
+        RouteDecoder.Callback,
+        MapBinaryChannel.Listener {
 
     private static final String TAG = "GoogleMapController";
     private final int id;
     private final AtomicInteger activityState;
     private final MethodChannel methodChannel;
+    private final MapBinaryChannel binaryChannel;
     private final PluginRegistry.Registrar registrar;
     private final MapView mapView;
+    // Whether mapView came from MapViewPool, and so was created without options.
+    private final boolean mapViewFromPool;
+    private final GoogleMapOptions options;
     private GoogleMap googleMap;
     private boolean trackCameraPosition = false;
+    private CameraMoveThrottle cameraMoveThrottle = new CameraMoveThrottle(0, 0, 0, false);
     private boolean myLocationEnabled = false;
     private boolean myLocationButtonEnabled = false;
     private boolean indoorEnabled = true;
     private boolean trafficEnabled = false;
+    // Set at creation only, lite mode maps cannot switch modes.
+    private boolean liteModeEnabled = false;
     private boolean disposed = false;
     private final float density;
     private MethodChannel.Result mapReadyResult;
@@ -111,22 +115,32 @@ final class GoogleMapController
     private List<Object> initialPolygons;
     private List<Object> initialPolylines;
     private List<Object> initialCircles;
+    // Zero to add the initial overlays at once in onMapReady.
+    private int initialOverlaysFrameBudgetMillis;
+    private InitialOverlayLoader initialOverlayLoader;
     GroundOverlay groundOverlay;
-    DownloadOverlay downloadOverlay;
+    TileOverlay tileOverlay;
+    private boolean useTileOverlay = false;
+    private boolean opaqueOverlay = false;
+    private final OverlayCache overlayCache;
+    private final OverlayFetchScheduler overlayFetchScheduler;
     private boolean isMoveFromCamera = false;
     String deviceId = "";
     String overLayResolution = "";
     String pollutionType = "";
     Bitmap overlayImage;
-    String fastRoute = "";
-    String cleanRoute = "";
-    String tempRoute = "";
+    private final RouteDecoder routeDecoder = new RouteDecoder();
+    private final MapSnapshotter snapshotter = new MapSnapshotter();
+    RouteDecoder.Route fastRoute;
+    RouteDecoder.Route cleanRoute;
+    RouteDecoder.Route tempRoute;
 
     boolean needToLoadOverlay = true;
 
     Polyline fastRoutePolyline;
     Polyline cleanRoutePolyline;
     Polyline tempRoutePolyline;
+    private int routeZoomBucket = SimplifiedPolyline.FULL_RESOLUTION;
 
     GoogleMapController(
             int id,
@@ -138,16 +152,23 @@ final class GoogleMapController
         this.context = context;
         this.activityState = activityState;
         this.registrar = registrar;
-        this.mapView = new MapView(context, options);
+        this.options = options;
+        final MapView pooledMapView =
+                MapViewPool.getInstance().acquire(registrar.activity(), options);
+        this.mapViewFromPool = pooledMapView != null;
+        this.mapView = mapViewFromPool ? pooledMapView : new MapView(context, options);
         this.density = context.getResources().getDisplayMetrics().density;
         methodChannel =
                 new MethodChannel(registrar.messenger(), "plugins.flutter.io/google_maps_" + id);
         methodChannel.setMethodCallHandler(this);
+        this.binaryChannel = new MapBinaryChannel(registrar.messenger(), id, this);
         this.registrarActivityHashCode = registrar.activity().hashCode();
-        this.markersController = new MarkersController(methodChannel);
+        this.markersController = new MarkersController(methodChannel, density);
         this.polygonsController = new PolygonsController(methodChannel);
         this.polylinesController = new PolylinesController(methodChannel, density);
         this.circlesController = new CirclesController(methodChannel);
+        this.overlayCache = OverlayCache.getInstance(context);
+        this.overlayFetchScheduler = new OverlayFetchScheduler(this, overlayCache);
     }
 
     @Override
@@ -158,29 +179,29 @@ final class GoogleMapController
     void init() {
         switch (activityState.get()) {
             case STOPPED:
-                mapView.onCreate(null);
+                createMapView();
                 mapView.onStart();
                 mapView.onResume();
                 mapView.onPause();
                 mapView.onStop();
                 break;
             case PAUSED:
-                mapView.onCreate(null);
+                createMapView();
                 mapView.onStart();
                 mapView.onResume();
                 mapView.onPause();
                 break;
             case RESUMED:
-                mapView.onCreate(null);
+                createMapView();
                 mapView.onStart();
                 mapView.onResume();
                 break;
             case STARTED:
-                mapView.onCreate(null);
+                createMapView();
                 mapView.onStart();
                 break;
             case CREATED:
-                mapView.onCreate(null);
+                createMapView();
                 break;
             case DESTROYED:
                 // Nothing to do, the activity has been completely destroyed.
@@ -193,6 +214,13 @@ final class GoogleMapController
         mapView.getMapAsync(this);
     }
 
+    private void createMapView() {
+        // Pooled views have been created already.
+        if (!mapViewFromPool) {
+            mapView.onCreate(null);
+        }
+    }
+
     private void moveCamera(CameraUpdate cameraUpdate) {
         googleMap.moveCamera(cameraUpdate);
     }
@@ -208,13 +236,59 @@ final class GoogleMapController
     @Override
     public void onMapReady(GoogleMap googleMap) {
         this.googleMap = googleMap;
+        if (mapViewFromPool) {
+            MapViewPool.applyOptions(googleMap, options);
+        }
         this.googleMap.setIndoorEnabled(this.indoorEnabled);
         this.googleMap.setTrafficEnabled(this.trafficEnabled);
-        googleMap.setOnInfoWindowClickListener(this);
         if (mapReadyResult != null) {
             mapReadyResult.success(null);
             mapReadyResult = null;
         }
+        if (liteModeEnabled) {
+            // A lite mode map is a static image, only taps on it are reported. The camera can
+            // still be moved from Dart, after which culling, clustering and the polyline zoom
+            // levels are updated as for other maps.
+            googleMap.setOnMapClickListener(this);
+            googleMap.setOnCameraIdleListener(this);
+        } else {
+            registerListeners(googleMap);
+        }
+        updateMyLocationSettings();
+        markersController.setGoogleMap(googleMap);
+        polygonsController.setGoogleMap(googleMap);
+        polylinesController.setGoogleMap(googleMap);
+        circlesController.setGoogleMap(googleMap);
+        if (initialOverlaysFrameBudgetMillis > 0) {
+            initialOverlayLoader =
+                    new InitialOverlayLoader(
+                            methodChannel,
+                            markersController,
+                            polygonsController,
+                            polylinesController,
+                            circlesController,
+                            initialOverlaysFrameBudgetMillis);
+            initialOverlayLoader.start(
+                    googleMap.getProjection().getVisibleRegion().latLngBounds,
+                    initialMarkers,
+                    initialPolygons,
+                    initialPolylines,
+                    initialCircles);
+            // The loader took what it needs from the lists.
+            initialMarkers = null;
+            initialPolygons = null;
+            initialPolylines = null;
+            initialCircles = null;
+        } else {
+            updateInitialMarkers();
+            updateInitialPolygons();
+            updateInitialPolylines();
+            updateInitialCircles();
+        }
+    }
+
+    private void registerListeners(GoogleMap googleMap) {
+        googleMap.setOnInfoWindowClickListener(this);
         googleMap.setOnCameraMoveStartedListener(this);
         googleMap.setOnCameraMoveListener(this);
         googleMap.setOnCameraIdleListener(this);
@@ -225,15 +299,40 @@ final class GoogleMapController
         googleMap.setOnCircleClickListener(this);
         googleMap.setOnMapClickListener(this);
         googleMap.setOnMapLongClickListener(this);
-        updateMyLocationSettings();
-        markersController.setGoogleMap(googleMap);
-        polygonsController.setGoogleMap(googleMap);
-        polylinesController.setGoogleMap(googleMap);
-        circlesController.setGoogleMap(googleMap);
-        updateInitialMarkers();
-        updateInitialPolygons();
-        updateInitialPolylines();
-        updateInitialCircles();
+    }
+
+    /** Counts what this map holds on to, to check that startup buffers are released. */
+    private Map<String, Object> memoryReport() {
+        int retainedInitialOverlays =
+                sizeOf(initialMarkers)
+                        + sizeOf(initialPolygons)
+                        + sizeOf(initialPolylines)
+                        + sizeOf(initialCircles);
+        if (initialOverlayLoader != null) {
+            retainedInitialOverlays += initialOverlayLoader.remaining();
+        }
+        final Runtime runtime = Runtime.getRuntime();
+        final Map<String, Object> report = new HashMap<>();
+        report.put("retainedInitialOverlays", retainedInitialOverlays);
+        report.put("markers", markersController.size());
+        report.put("polygons", polygonsController.size());
+        report.put("polylines", polylinesController.size());
+        report.put("circles", circlesController.size());
+        report.put(
+                "overlayImageBytes", overlayImage == null ? 0 : BitmapPool.sizeOf(overlayImage));
+        report.put("appHeapUsedBytes", runtime.totalMemory() - runtime.freeMemory());
+        return report;
+    }
+
+    private static int sizeOf(List<Object> list) {
+        return list == null ? 0 : list.size();
+    }
+
+    /** Adds any initial overlays that are still loading, before overlays are updated from Dart. */
+    private void finishInitialOverlays() {
+        if (initialOverlayLoader != null) {
+            initialOverlayLoader.finish();
+        }
     }
 
     @Override
@@ -250,36 +349,50 @@ final class GoogleMapController
                     pollutionType = "REL";
                 else
                     pollutionType = "ABS";
+                opaqueOverlay = Boolean.TRUE.equals(map.get("overlayOpaque"));
+                boolean tileMode = Boolean.TRUE.equals(map.get("overlayTileMode"));
+                if (tileMode != useTileOverlay || tileOverlay != null) {
+                    // Switch modes, or rebuild the tile provider for the new settings.
+                    useTileOverlay = tileMode;
+                    removeOverlay();
+                    if (needToLoadOverlay && googleMap != null) {
+                        loadOverlay(false);
+                    }
+                }
 
                 break;
             case "map#setPolyLine":
                 isMoveFromCamera = false;
                 Log.e("setPolyLine", "setPolyLine");
                 HashMap map1 = (HashMap) call.arguments;
-                Log.e("HashMapValue", "" + map1.toString());
                 String isNewRequest = "" + map1.get("isNewRequest");
                 String routeType = (String) map1.get("type");
-                String points = (String) map1.get("points");
+                Object points = map1.get("points");
+                // The points payload can be very large, so keep it out of the log.
+                Log.e("HashMapValue", "isNewRequest=" + isNewRequest + ", type=" + routeType);
                 if (isNewRequest.equalsIgnoreCase("true")) {
+                    routeDecoder.cancelAll();
                     googleMap.clear();
-                    fastRoute = "";
-                    cleanRoute = "";
-                    tempRoute = "";
+                    tileOverlay = null;
+                    fastRoute = null;
+                    cleanRoute = null;
+                    tempRoute = null;
                     needToLoadOverlay = false;
+                    overlayFetchScheduler.cancel();
                 } else if (routeType != null && routeType.equalsIgnoreCase("4")) {
-                    tempRoute = "";
+                    routeDecoder.cancel(RouteDecoder.TEMP_ROUTE);
+                    tempRoute = null;
                     googleMap.clear();
-                    if (downloadOverlay != null)
-                        downloadOverlay.cancel(true);
-                    downloadOverlay = new DownloadOverlay();
-                    downloadOverlay.execute();
+                    tileOverlay = null;
                     needToLoadOverlay = true;
+                    loadOverlay(true);
                     return;
                 } else if (routeType != null && (routeType.equalsIgnoreCase("5") || routeType.equalsIgnoreCase("6"))) {
                     Log.e("RouteCleaned", "RouteCleaned");
-                    tempRoute = "";
-                    fastRoute = "";
-                    cleanRoute = "";
+                    routeDecoder.cancelAll();
+                    tempRoute = null;
+                    fastRoute = null;
+                    cleanRoute = null;
                     if (fastRoutePolyline != null)
                         fastRoutePolyline.remove();
                     if (cleanRoutePolyline != null)
@@ -288,25 +401,17 @@ final class GoogleMapController
                         tempRoutePolyline.remove();
                 }
 
+                int type;
                 if (routeType != null && (routeType.equalsIgnoreCase("1") || routeType.equalsIgnoreCase("5"))) {
                     Log.e("FastRoute", "FastRoute");
-                    fastRoute = points;
+                    type = RouteDecoder.FAST_ROUTE;
                 } else if (routeType != null && (routeType.equalsIgnoreCase("2") || routeType.equalsIgnoreCase("6"))) {
                     Log.e("CleanRoute", "CleanRoute");
-                    cleanRoute = points;
+                    type = RouteDecoder.CLEAN_ROUTE;
                 } else {
-                    tempRoute = points;
-                }
-
-                if (fastRoute != null && !fastRoute.isEmpty()) {
-                    addPolyline(1, fastRoute, true);
-                }
-                if (cleanRoute != null && !cleanRoute.isEmpty()) {
-                    addPolyline(2, cleanRoute, true);
-                }
-                if (tempRoute != null && !tempRoute.isEmpty()) {
-                    addPolyline(3, tempRoute, true);
+                    type = RouteDecoder.TEMP_ROUTE;
                 }
+                routeDecoder.decode(type, points, this);
                 break;
             case "map#waitForMap":
                 if (googleMap != null) {
@@ -320,6 +425,40 @@ final class GoogleMapController
                 result.success(Convert.cameraPositionToJson(getCameraPosition()));
                 break;
             }
+            case "map#takeSnapshot": {
+                if (googleMap == null) {
+                    result.error(
+                            "GoogleMap uninitialized",
+                            "takeSnapshot called prior to map initialization",
+                            null);
+                    break;
+                }
+                Number width = call.argument("width");
+                Number height = call.argument("height");
+                Number format = call.argument("format");
+                Number quality = call.argument("quality");
+                if (format == null || quality == null) {
+                    result.error(
+                            "Invalid snapshot options", "format and quality are required", null);
+                    break;
+                }
+                try {
+                    snapshotter.takeSnapshot(
+                            googleMap,
+                            width == null ? 0 : width.intValue(),
+                            height == null ? 0 : height.intValue(),
+                            format.intValue(),
+                            quality.intValue(),
+                            result);
+                } catch (IllegalArgumentException e) {
+                    result.error("Invalid snapshot options", e.getMessage(), null);
+                }
+                break;
+            }
+            case "map#getMemoryReport": {
+                result.success(memoryReport());
+                break;
+            }
             case "map#getVisibleRegion": {
                 if (googleMap != null) {
                     LatLngBounds latLngBounds = googleMap.getProjection().getVisibleRegion().latLngBounds;
@@ -371,16 +510,62 @@ final class GoogleMapController
                 break;
             }
             case "markers#update": {
+                finishInitialOverlays();
                 Object markersToAdd = call.argument("markersToAdd");
-                markersController.addMarkers((List<Object>) markersToAdd);
                 Object markersToChange = call.argument("markersToChange");
-                markersController.changeMarkers((List<Object>) markersToChange);
                 Object markerIdsToRemove = call.argument("markerIdsToRemove");
-                markersController.removeMarkers((List<Object>) markerIdsToRemove);
+                result.success(
+                        markersController.updateMarkers(
+                                (List<Object>) markersToAdd,
+                                (List<Object>) markersToChange,
+                                (List<Object>) markerIdsToRemove));
+                break;
+            }
+            case "markers#streamPositions": {
+                finishInitialOverlays();
+                List<String> newMarkerIds = call.argument("newMarkerIds");
+                double[] positions = call.argument("positions");
+                Number durationMillis = call.argument("durationMillis");
+                if (positions == null || durationMillis == null) {
+                    result.error(
+                            "Invalid marker positions",
+                            "positions and durationMillis are required",
+                            null);
+                    break;
+                }
+                try {
+                    // Before moving any marker, so that a bad batch is not applied in part.
+                    markersController.checkStreamedPositions(newMarkerIds, positions);
+                } catch (IllegalArgumentException e) {
+                    result.error("Invalid marker index", e.getMessage(), null);
+                    break;
+                }
+                markersController.streamPositions(
+                        newMarkerIds, positions, durationMillis.longValue());
                 result.success(null);
                 break;
             }
+            case "icons#register": {
+                byte[] bytes = call.argument("bytes");
+                try {
+                    result.success(IconRegistry.getInstance().register(id, bytes));
+                } catch (IllegalArgumentException e) {
+                    result.error("Invalid icon", e.getMessage(), null);
+                }
+                break;
+            }
+            case "icons#unregister": {
+                Integer handle = call.argument("handle");
+                IconRegistry.getInstance().unregister(handle);
+                result.success(null);
+                break;
+            }
+            case "icons#getCacheStats": {
+                result.success(BitmapDescriptorCache.getInstance().getStats());
+                break;
+            }
             case "polygons#update": {
+                finishInitialOverlays();
                 Object polygonsToAdd = call.argument("polygonsToAdd");
                 polygonsController.addPolygons((List<Object>) polygonsToAdd);
                 Object polygonsToChange = call.argument("polygonsToChange");
@@ -391,6 +576,7 @@ final class GoogleMapController
                 break;
             }
             case "polygons#settingDidChange": {
+                finishInitialOverlays();
                 Object polygonsToAdd = call.argument("polygonsToAdd");
                 polygonsController.addPolygons((List<Object>) polygonsToAdd);
                 Object polygonsToChange = call.argument("polygonsToChange");
@@ -401,6 +587,7 @@ final class GoogleMapController
                 break;
             }
             case "polylines#update": {
+                finishInitialOverlays();
                 Object polylinesToAdd = call.argument("polylinesToAdd");
                 polylinesController.addPolylines((List<Object>) polylinesToAdd);
                 Object polylinesToChange = call.argument("polylinesToChange");
@@ -410,7 +597,23 @@ final class GoogleMapController
                 result.success(null);
                 break;
             }
+            case "polylines#appendPoints": {
+                finishInitialOverlays();
+                String polylineId = call.argument("polylineId");
+                Number maxSegmentPoints = call.argument("maxSegmentPoints");
+                try {
+                    polylinesController.appendPolylinePoints(
+                            polylineId,
+                            Convert.toPoints(call.argument("points")),
+                            maxSegmentPoints.intValue());
+                    result.success(null);
+                } catch (IllegalArgumentException e) {
+                    result.error("Invalid polyline points", e.getMessage(), null);
+                }
+                break;
+            }
             case "circles#update": {
+                finishInitialOverlays();
                 Object circlesToAdd = call.argument("circlesToAdd");
                 circlesController.addCircles((List<Object>) circlesToAdd);
                 Object circlesToChange = call.argument("circlesToChange");
@@ -505,7 +708,7 @@ final class GoogleMapController
 
     @Override
     public void onInfoWindowClick(Marker marker) {
-        markersController.onInfoWindowTap(marker.getId());
+        markersController.onInfoWindowTap(marker);
     }
 
     @Override
@@ -513,29 +716,78 @@ final class GoogleMapController
         if (!trackCameraPosition) {
             return;
         }
-        final Map<String, Object> arguments = new HashMap<>(2);
-        arguments.put("position", Convert.cameraPositionToJson(googleMap.getCameraPosition()));
-        methodChannel.invokeMethod("camera#onMove", arguments);
+        final CameraPosition position = googleMap.getCameraPosition();
+        if (cameraMoveThrottle.onMove(position)) {
+            sendCameraMove(position);
+        }
         isMoveFromCamera = true;
-        Log.e("CameraMoved", "cameraMoved");
-        if (needToLoadOverlay) {
-            if (downloadOverlay != null)
-                downloadOverlay.cancel(true);
-
-            downloadOverlay = new DownloadOverlay();
-            downloadOverlay.execute();
+        if (needToLoadOverlay && !useTileOverlay) {
+            LatLngBounds bounds = overlayBounds();
+            overlayFetchScheduler.schedule(
+                    bounds,
+                    overlayUrl(bounds),
+                    overlayCacheKey(bounds),
+                    mapView.getWidth(),
+                    mapView.getHeight(),
+                    opaqueOverlay);
         }
 
     }
 
     @Override
     public void onCameraIdle() {
-        methodChannel.invokeMethod("camera#onIdle", Collections.singletonMap("map", id));
+        final CameraPosition position = googleMap.getCameraPosition();
+        if (trackCameraPosition && cameraMoveThrottle.onIdle(position)) {
+            sendCameraMove(position);
+        }
+        binaryChannel.sendCameraIdle();
+        float zoom = position.zoom;
+        markersController.onCameraIdle(zoom);
+        polylinesController.onCameraIdle(zoom);
+        updateRouteZoomBucket(SimplifiedPolyline.zoomBucket(zoom));
+    }
+
+    private void sendCameraMove(CameraPosition position) {
+        binaryChannel.sendCameraMove(position);
+    }
+
+    @Override
+    public void onMarkerPositions(List<String> markerIds, List<LatLng> positions) {
+        if (googleMap == null) {
+            return;
+        }
+        finishInitialOverlays();
+        markersController.setMarkerPositions(markerIds, positions);
+    }
+
+    @Override
+    public void onPolylinePoints(String polylineId, List<LatLng> points) {
+        if (googleMap == null) {
+            return;
+        }
+        finishInitialOverlays();
+        polylinesController.setPolylinePoints(polylineId, points);
+    }
+
+    private void updateRouteZoomBucket(int zoomBucket) {
+        if (zoomBucket == routeZoomBucket) {
+            return;
+        }
+        routeZoomBucket = zoomBucket;
+        if (fastRoute != null && fastRoutePolyline != null) {
+            fastRoutePolyline.setPoints(fastRoute.simplified.pointsForBucket(zoomBucket));
+        }
+        if (cleanRoute != null && cleanRoutePolyline != null) {
+            cleanRoutePolyline.setPoints(cleanRoute.simplified.pointsForBucket(zoomBucket));
+        }
+        if (tempRoute != null && tempRoutePolyline != null) {
+            tempRoutePolyline.setPoints(tempRoute.simplified.pointsForBucket(zoomBucket));
+        }
     }
 
     @Override
     public boolean onMarkerClick(Marker marker) {
-        return markersController.onMarkerTap(marker.getId());
+        return markersController.onMarkerTap(marker);
     }
 
     @Override
@@ -548,22 +800,22 @@ final class GoogleMapController
 
     @Override
     public void onMarkerDragEnd(Marker marker) {
-        markersController.onMarkerDragEnd(marker.getId(), marker.getPosition());
+        markersController.onMarkerDragEnd(marker);
     }
 
     @Override
     public void onPolygonClick(Polygon polygon) {
-        polygonsController.onPolygonTap(polygon.getId());
+        polygonsController.onPolygonTap(polygon);
     }
 
     @Override
     public void onPolylineClick(Polyline polyline) {
-        polylinesController.onPolylineTap(polyline.getId());
+        polylinesController.onPolylineTap(polyline);
     }
 
     @Override
     public void onCircleClick(Circle circle) {
-        circlesController.onCircleTap(circle.getId());
+        circlesController.onCircleTap(circle);
     }
 
     @Override
@@ -572,11 +824,66 @@ final class GoogleMapController
             return;
         }
         disposed = true;
+        if (initialOverlayLoader != null) {
+            initialOverlayLoader.cancel();
+        }
+        routeDecoder.dispose();
+        snapshotter.dispose();
+        overlayFetchScheduler.dispose();
+        markersController.dispose();
+        IconRegistry.getInstance().releaseAll(id);
+        overlayCache.releaseBitmap(overlayImage);
+        overlayImage = null;
         methodChannel.setMethodCallHandler(null);
-        mapView.onDestroy();
+        binaryChannel.dispose();
+        if (!recycleMapView()) {
+            mapView.onDestroy();
+        }
         registrar.activity().getApplication().unregisterActivityLifecycleCallbacks(this);
     }
 
+    /** Clears the map and hands its view to MapViewPool, returning false if it was not taken. */
+    @SuppressLint("MissingPermission")
+    private boolean recycleMapView() {
+        if (googleMap == null
+                || activityState.get() == DESTROYED
+                || !MapViewPool.getInstance().hasRoom(registrar.activity())
+                || !MapViewPool.canReuse(options)) {
+            return false;
+        }
+        googleMap.clear();
+        googleMap.setOnInfoWindowClickListener(null);
+        googleMap.setOnCameraMoveStartedListener(null);
+        googleMap.setOnCameraMoveListener(null);
+        googleMap.setOnCameraIdleListener(null);
+        googleMap.setOnMarkerClickListener(null);
+        googleMap.setOnMarkerDragListener(null);
+        googleMap.setOnPolygonClickListener(null);
+        googleMap.setOnPolylineClickListener(null);
+        googleMap.setOnCircleClickListener(null);
+        googleMap.setOnMapClickListener(null);
+        googleMap.setOnMapLongClickListener(null);
+        googleMap.setMyLocationEnabled(false);
+        googleMap.setTrafficEnabled(false);
+        googleMap.setMapStyle(null);
+        googleMap.setPadding(0, 0, 0, 0);
+        // Pooled views are kept in the created state.
+        switch (activityState.get()) {
+            case RESUMED:
+                mapView.onPause();
+                mapView.onStop();
+                break;
+            case STARTED:
+            case PAUSED:
+                mapView.onStop();
+                break;
+            default:
+                break;
+        }
+        MapViewPool.getInstance().release(mapView);
+        return true;
+    }
+
     // @Override
     // The minimum supported version of Flutter doesn't have this method on the PlatformView interface, but the maximum
     // does. This will override it when available even with the annotation commented out.
@@ -678,6 +985,14 @@ final class GoogleMapController
         this.trackCameraPosition = trackCameraPosition;
     }
 
+    @Override
+    public void setCameraMoveThrottle(CameraMoveThrottle cameraMoveThrottle) {
+        // List options are resent on every widget rebuild, which must not reset the throttling.
+        if (!this.cameraMoveThrottle.hasSameLimits(cameraMoveThrottle)) {
+            this.cameraMoveThrottle = cameraMoveThrottle;
+        }
+    }
+
     @Override
     public void setRotateGesturesEnabled(boolean rotateGesturesEnabled) {
         googleMap.getUiSettings().setRotateGesturesEnabled(rotateGesturesEnabled);
@@ -742,6 +1057,10 @@ final class GoogleMapController
         }
     }
 
+    void setInitialOverlaysFrameBudgetMillis(int initialOverlaysFrameBudgetMillis) {
+        this.initialOverlaysFrameBudgetMillis = initialOverlaysFrameBudgetMillis;
+    }
+
     @Override
     public void setInitialMarkers(Object initialMarkers) {
         this.initialMarkers = (List<Object>) initialMarkers;
@@ -750,8 +1069,11 @@ final class GoogleMapController
         }
     }
 
+    // The initial overlays are only held until they were added, so that the creation
+    // parameters are not kept alive for the lifetime of the map.
     private void updateInitialMarkers() {
         markersController.addMarkers(initialMarkers);
+        initialMarkers = null;
     }
 
     @Override
@@ -764,6 +1086,7 @@ final class GoogleMapController
 
     private void updateInitialPolygons() {
         polygonsController.addPolygons(initialPolygons);
+        initialPolygons = null;
     }
 
     @Override
@@ -776,6 +1099,7 @@ final class GoogleMapController
 
     private void updateInitialPolylines() {
         polylinesController.addPolylines(initialPolylines);
+        initialPolylines = null;
     }
 
     @Override
@@ -788,74 +1112,79 @@ final class GoogleMapController
 
     private void updateInitialCircles() {
         circlesController.addCircles(initialCircles);
+        initialCircles = null;
     }
 
-    class DownloadOverlay extends AsyncTask<Void, Void, Bitmap> {
-        double north, south, west, east;
-        String url;
-
-        DownloadOverlay() {
-
-            LatLngBounds curScreen = googleMap.getProjection()
-                    .getVisibleRegion().latLngBounds;
-            north = curScreen.northeast.latitude;
-            south = curScreen.southwest.latitude;
-            west = curScreen.southwest.longitude;
-            east = curScreen.northeast.longitude;
-
-            url = "http://ec2-52-56-59-47.eu-west-2.compute.amazonaws.com/?meth=bounds&N=" +
-                    north +
-                    "&S=" +
-                    south +
-                    "&W=" +
-                    west +
-                    "&E=" +
-                    east +
-                    "&RAD=15&SIZE=50" +
-                    "&DID=" +
-                    deviceId +
-                    "&RET=IMG";
-        }
-
-        @Override
-        protected void onPostExecute(Bitmap bitmap) {
-            super.onPostExecute(bitmap);
-            if (bitmap == null) {
-                String str = "ImageNull";
-                Log.e(str, str);
-                return;
+    /** The visible region snapped to the overlay cache grid. */
+    private LatLngBounds overlayBounds() {
+        return OverlayCache.quantize(googleMap.getProjection().getVisibleRegion().latLngBounds);
+    }
+
+    private String overlayCacheKey(LatLngBounds bounds) {
+        return OverlayCache.key(bounds, overLayResolution, pollutionType, deviceId);
+    }
+
+    private String overlayUrl(LatLngBounds bounds) {
+        return PollutionTileProvider.boundsUrl(
+                bounds.northeast.latitude,
+                bounds.southwest.latitude,
+                bounds.southwest.longitude,
+                bounds.northeast.longitude,
+                deviceId);
+    }
+
+    /**
+     * Shows the pollution overlay in the current mode.
+     *
+     * <p>In tile mode the SDK fetches tiles as they become visible, so the routes can be redrawn
+     * right away. In image mode they are redrawn once the viewport image has been downloaded.
+     */
+    private void loadOverlay(boolean redrawRoutes) {
+        if (useTileOverlay) {
+            if (tileOverlay == null) {
+                tileOverlay = googleMap.addTileOverlay(
+                        new TileOverlayOptions().tileProvider(new PollutionTileProvider(deviceId)));
             }
-            overlayImage = bitmap;
-            LatLngBounds latLngBounds = new LatLngBounds(new LatLng(south, west), new LatLng(north, east));
-            addGroundOverlay(bitmap, latLngBounds);
-            Log.e("OverlayDownloaded", "OverlayDownloaed");
-            if (!isMoveFromCamera) {
-                if (fastRoute != null && !fastRoute.isEmpty()) {
-                    addPolyline(1, fastRoute, true);
-                }
-                if (cleanRoute != null && !cleanRoute.isEmpty()) {
-                    addPolyline(2, cleanRoute, true);
-                }
-                if (tempRoute != null && !tempRoute.isEmpty()) {
-                    addPolyline(3, tempRoute, true);
-                }
+            if (redrawRoutes) {
+                addRoutePolylines();
             }
+        } else {
+            LatLngBounds bounds = overlayBounds();
+            overlayFetchScheduler.fetchNow(
+                    bounds,
+                    overlayUrl(bounds),
+                    overlayCacheKey(bounds),
+                    mapView.getWidth(),
+                    mapView.getHeight(),
+                    opaqueOverlay);
         }
+    }
 
-        @Override
-        protected void onPreExecute() {
-            super.onPreExecute();
-
+    private void removeOverlay() {
+        overlayFetchScheduler.cancel();
+        if (groundOverlay != null) {
+            groundOverlay.remove();
+            groundOverlay = null;
+        }
+        if (tileOverlay != null) {
+            tileOverlay.remove();
+            tileOverlay = null;
         }
+    }
 
-        @Override
-        protected Bitmap doInBackground(Void... voids) {
-            try {
-                return BitmapFactory.decodeStream(new URL(url).openConnection().getInputStream());
-            } catch (Exception e) {
-                e.printStackTrace();
-                return null;
-            }
+    @Override
+    public void onOverlayLoaded(Bitmap bitmap, LatLngBounds latLngBounds) {
+        if (disposed) {
+            overlayCache.releaseBitmap(bitmap);
+            return;
+        }
+        addGroundOverlay(bitmap, latLngBounds);
+        // The previous image is no longer on screen and may be reused for later decodes.
+        overlayCache.releaseBitmap(overlayImage);
+        overlayImage = bitmap;
+        Log.e("OverlayDownloaded", "OverlayDownloaed");
+        if (!isMoveFromCamera) {
+            addRoutePolylines();
         }
     }
 
@@ -903,55 +1232,91 @@ final class GoogleMapController
         this.trafficEnabled = trafficEnabled;
     }
 
-    private void addPolyline(int type, String str, boolean showMarker) {
-        try {
-            JSONArray jsonArray = new JSONArray(str);
-            int cnt = jsonArray.length();
-            int pos = 0;
-            double lat;
-            double lng;
-            LatLng[] latLngs = new LatLng[cnt / 2];
-            while (pos < cnt) {
-                lat = jsonArray.getDouble(pos);
-                lng = jsonArray.getDouble(pos + 1);
-                latLngs[pos / 2] = new LatLng(lat, lng);
-                pos += 2;
-            }
-            int color = type == 1 ? Color.RED : type == 2 ? Color.GREEN : Color.BLUE;
-            if (latLngs.length != 0) {
-                Log.e("StartPoint", "" + (new LatLng(latLngs[0].latitude, latLngs[0].longitude).toString()));
-                Log.e("EndPoint", "" + (new LatLng(latLngs[latLngs.length - 1].latitude, latLngs[latLngs.length - 1].longitude)).toString());
-                LatLng endLatlong = new LatLng(latLngs[latLngs.length - 1].latitude, latLngs[latLngs.length - 1].longitude);
-                LatLng startLatLong = new LatLng(latLngs[0].latitude, latLngs[0].longitude);
-                if (type == 1) {
-                    fastRoutePolyline = googleMap.addPolyline(new PolylineOptions().add(latLngs).width(12).color(color));
-                } else if (type == 2) {
-                    cleanRoutePolyline = googleMap.addPolyline(new PolylineOptions().add(latLngs).width(12).color(color));
-                } else {
-                    tempRoutePolyline = googleMap.addPolyline(new PolylineOptions().add(latLngs).width(12).color(color));
-                }
+    @Override
+    public void setMarkerClusteringEnabled(boolean markerClusteringEnabled) {
+        markersController.setClusteringEnabled(markerClusteringEnabled);
+    }
 
+    @Override
+    public void setMarkerCullingEnabled(boolean markerCullingEnabled) {
+        markersController.setCullingEnabled(markerCullingEnabled);
+    }
 
-                Log.e("TypeToAddPolyline", "" + type);
-                if (isMoveFromCamera)
-                    return;
-                LatLngBounds.Builder bounds = new LatLngBounds.Builder();
-                bounds.include(endLatlong);
-                bounds.include(startLatLong);
-
-                googleMap.moveCamera(CameraUpdateFactory.newLatLngBounds(bounds.build(), 150));
-                if (showMarker) {
-                    MarkerOptions mo = new MarkerOptions().position(startLatLong).title("Start");
-                    googleMap.addMarker(mo);
-                    mo = new MarkerOptions().position(endLatlong).title("Finish");
-                    googleMap.addMarker(mo);
-                }
+    @Override
+    public void setAsyncMarkerIconDecodingEnabled(boolean asyncMarkerIconDecodingEnabled) {
+        markersController.setAsyncIconDecodingEnabled(asyncMarkerIconDecodingEnabled);
+    }
 
-            }
-        } catch (JSONException e) {
-            e.printStackTrace();
+    @Override
+    public void setLiteModeEnabled(boolean liteModeEnabled) {
+        if (googleMap != null) {
+            // The map view was created in its mode already.
+            return;
         }
+        this.liteModeEnabled = liteModeEnabled;
+    }
 
+    @Override
+    public void onRouteDecoded(int type, RouteDecoder.Route route) {
+        if (disposed || googleMap == null) {
+            return;
+        }
+        if (type == RouteDecoder.FAST_ROUTE) {
+            fastRoute = route;
+        } else if (type == RouteDecoder.CLEAN_ROUTE) {
+            cleanRoute = route;
+        } else {
+            tempRoute = route;
+        }
+        addRoutePolylines();
+    }
+
+    private void addRoutePolylines() {
+        if (fastRoute != null) {
+            addPolyline(1, fastRoute, true);
+        }
+        if (cleanRoute != null) {
+            addPolyline(2, cleanRoute, true);
+        }
+        if (tempRoute != null) {
+            addPolyline(3, tempRoute, true);
+        }
+    }
+
+    private void addPolyline(int type, RouteDecoder.Route route, boolean showMarker) {
+        LatLng[] latLngs = route.points;
+        if (latLngs.length != 0) {
+            routeZoomBucket = SimplifiedPolyline.zoomBucket(googleMap.getCameraPosition().zoom);
+            PolylineOptions options = route.optionsForBucket(routeZoomBucket);
+            LatLng endLatlong = latLngs[latLngs.length - 1];
+            LatLng startLatLong = latLngs[0];
+            Log.e("StartPoint", "" + startLatLong);
+            Log.e("EndPoint", "" + endLatlong);
+            if (type == 1) {
+                fastRoutePolyline = googleMap.addPolyline(options);
+            } else if (type == 2) {
+                cleanRoutePolyline = googleMap.addPolyline(options);
+            } else {
+                tempRoutePolyline = googleMap.addPolyline(options);
+            }
+
+
+            Log.e("TypeToAddPolyline", "" + type);
+            if (isMoveFromCamera)
+                return;
+            LatLngBounds.Builder bounds = new LatLngBounds.Builder();
+            bounds.include(endLatlong);
+            bounds.include(startLatLong);
+
+            googleMap.moveCamera(CameraUpdateFactory.newLatLngBounds(bounds.build(), 150));
+            if (showMarker) {
+                MarkerOptions mo = new MarkerOptions().position(startLatLong).title("Start");
+                googleMap.addMarker(mo);
+                mo = new MarkerOptions().position(endLatlong).title("Finish");
+                googleMap.addMarker(mo);
+            }
+
+        }
     }
 
     private void addGroundOverlay(Bitmap bitmap, LatLngBounds bounds) {
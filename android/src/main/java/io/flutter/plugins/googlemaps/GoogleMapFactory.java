@@ -48,6 +48,10 @@ public class GoogleMapFactory extends PlatformViewFactory {
     if (params.containsKey("circlesToAdd")) {
       builder.setInitialCircles(params.get("circlesToAdd"));
     }
+    if (params.get("initialOverlaysFrameBudgetMillis") != null) {
+      builder.setInitialOverlaysFrameBudgetMillis(
+          ((Number) params.get("initialOverlaysFrameBudgetMillis")).intValue());
+    }
     return builder.build(id, context, mActivityState, mPluginRegistrar);
   }
 }
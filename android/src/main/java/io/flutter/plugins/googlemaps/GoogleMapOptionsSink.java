@@ -28,6 +28,8 @@ interface GoogleMapOptionsSink {
 
   void setTrackCameraPosition(boolean trackCameraPosition);
 
+  void setCameraMoveThrottle(CameraMoveThrottle cameraMoveThrottle);
+
   void setZoomGesturesEnabled(boolean zoomGesturesEnabled);
 
   void setMyLocationEnabled(boolean myLocationEnabled);
@@ -38,6 +40,14 @@ interface GoogleMapOptionsSink {
 
   void setTrafficEnabled(boolean trafficEnabled);
 
+  void setMarkerClusteringEnabled(boolean markerClusteringEnabled);
+
+  void setMarkerCullingEnabled(boolean markerCullingEnabled);
+
+  void setAsyncMarkerIconDecodingEnabled(boolean asyncMarkerIconDecodingEnabled);
+
+  void setLiteModeEnabled(boolean liteModeEnabled);
+
   void setInitialMarkers(Object initialMarkers);
 
   void setInitialPolygons(Object initialPolygons);
@@ -7,6 +7,8 @@ package io.flutter.plugins.googlemaps;
 import android.app.Activity;
 import android.app.Application;
 import android.os.Bundle;
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugin.common.PluginRegistry.Registrar;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -16,7 +18,8 @@ import java.util.concurrent.atomic.AtomicInteger;
  * the map. A Texture drawn using GoogleMap bitmap snapshots can then be shown instead of the
  * overlay.
  */
-public class GoogleMapsPlugin implements Application.ActivityLifecycleCallbacks {
+public class GoogleMapsPlugin
+    implements Application.ActivityLifecycleCallbacks, MethodChannel.MethodCallHandler {
   static final int CREATED = 1;
   static final int STARTED = 2;
   static final int RESUMED = 3;
@@ -25,6 +28,7 @@ public class GoogleMapsPlugin implements Application.ActivityLifecycleCallbacks
   static final int DESTROYED = 6;
   private final AtomicInteger state = new AtomicInteger(0);
   private final int registrarActivityHashCode;
+  private final Registrar registrar;
 
   public static void registerWith(Registrar registrar) {
     if (registrar.activity() == null) {
@@ -38,6 +42,27 @@ public class GoogleMapsPlugin implements Application.ActivityLifecycleCallbacks
         .platformViewRegistry()
         .registerViewFactory(
             "plugins.flutter.io/google_maps", new GoogleMapFactory(plugin.state, registrar));
+    new MethodChannel(registrar.messenger(), "plugins.flutter.io/google_maps")
+        .setMethodCallHandler(plugin);
+  }
+
+  @Override
+  public void onMethodCall(MethodCall call, MethodChannel.Result result) {
+    switch (call.method) {
+      case "mapViewPool#prewarm":
+        {
+          final Number count = call.argument("count");
+          MapViewPool.getInstance().prewarm(registrar.activity(), count.intValue());
+          result.success(null);
+          break;
+        }
+      case "mapViewPool#clear":
+        MapViewPool.getInstance().clear();
+        result.success(null);
+        break;
+      default:
+        result.notImplemented();
+    }
   }
 
   @Override
@@ -89,10 +114,12 @@ public class GoogleMapsPlugin implements Application.ActivityLifecycleCallbacks
       return;
     }
     activity.getApplication().unregisterActivityLifecycleCallbacks(this);
+    MapViewPool.getInstance().clear();
     state.set(DESTROYED);
   }
 
   private GoogleMapsPlugin(Registrar registrar) {
     this.registrarActivityHashCode = registrar.activity().hashCode();
+    this.registrar = registrar;
   }
 }
@@ -0,0 +1,92 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interns the string ids used on the channel as dense int handles and stores a value per handle in
+ * an array.
+ *
+ * <p>Map objects carry their handle as a tag, so tap callbacks find their value and Dart id by
+ * array index instead of by string. Handles of removed ids are reused, which keeps the arrays as
+ * small as the number of live values.
+ */
+class HandleTable<T> {
+  private final Map<String, Integer> idToHandle = new HashMap<>();
+  private final ArrayList<String> ids = new ArrayList<>();
+  private final ArrayList<T> values = new ArrayList<>();
+  private int[] freeHandles = new int[8];
+  private int freeCount;
+
+  /** Stores the value under the id, replacing any previous value, and returns its handle. */
+  int put(String id, T value) {
+    final Integer existing = idToHandle.get(id);
+    if (existing != null) {
+      values.set(existing, value);
+      return existing;
+    }
+    final int handle;
+    if (freeCount > 0) {
+      handle = freeHandles[--freeCount];
+      ids.set(handle, id);
+      values.set(handle, value);
+    } else {
+      handle = ids.size();
+      ids.add(id);
+      values.add(value);
+    }
+    idToHandle.put(id, handle);
+    return handle;
+  }
+
+  /** Returns the value of the id, or null. */
+  T get(String id) {
+    final Integer handle = idToHandle.get(id);
+    return handle == null ? null : values.get(handle);
+  }
+
+  /** Returns the value of the handle, or null if it is not in use. */
+  T get(int handle) {
+    return handle < 0 || handle >= values.size() ? null : values.get(handle);
+  }
+
+  /** Returns the id of the handle, or null if it is not in use. */
+  String idOf(int handle) {
+    return handle < 0 || handle >= ids.size() ? null : ids.get(handle);
+  }
+
+  boolean contains(String id) {
+    return idToHandle.containsKey(id);
+  }
+
+  /** Removes the id and returns its value, or null if it was not in the table. */
+  T remove(String id) {
+    final Integer handle = idToHandle.remove(id);
+    if (handle == null) {
+      return null;
+    }
+    final T value = values.get(handle);
+    ids.set(handle, null);
+    values.set(handle, null);
+    if (freeCount == freeHandles.length) {
+      freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+    }
+    freeHandles[freeCount++] = handle;
+    return value;
+  }
+
+  /** Handles in use are below this bound; iterate up to it and skip null values. */
+  int handleLimit() {
+    return values.size();
+  }
+
+  int size() {
+    return idToHandle.size();
+  }
+}
@@ -0,0 +1,165 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Decodes large {@code fromBytes} marker icons off the platform main thread.
+ *
+ * <p>Markers waiting for the same image share a single decode, which is cancelled once no marker
+ * waits for it anymore. Decoded icons are added to the {@link BitmapDescriptorCache}. All methods
+ * must be called on the main thread, and {@link Callback} is invoked on it.
+ */
+class IconDecoder {
+  private static final String TAG = "IconDecoder";
+  // Smaller images decode quickly enough to stay inline.
+  private static final int MIN_ASYNC_BYTES = 16 * 1024;
+
+  /** Receives decoded icons, or their failures, on the main looper. */
+  interface Callback {
+    void onIconDecoded(String markerId, BitmapDescriptor descriptor);
+
+    /** Called when the bytes are not a valid image. The marker has no pending icon anymore. */
+    void onIconDecodeFailed(String markerId);
+  }
+
+  private static final class PendingDecode {
+    final Set<String> markerIds = new HashSet<>();
+    Future<?> future;
+  }
+
+  private final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+              Thread thread =
+                  new Thread(
+                      new Runnable() {
+                        @Override
+                        public void run() {
+                          Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                          runnable.run();
+                        }
+                      },
+                      TAG);
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final Map<String, PendingDecode> pendingByCacheKey = new HashMap<>();
+  private final Map<String, String> markerIdToCacheKey = new HashMap<>();
+
+  /** Returns whether the Dart icon is image bytes large enough to be worth decoding async. */
+  static boolean shouldDecodeAsync(Object icon) {
+    if (!(icon instanceof List)) {
+      return false;
+    }
+    final List<?> data = (List<?>) icon;
+    return data.size() == 2
+        && "fromBytes".equals(data.get(0))
+        && data.get(1) instanceof byte[]
+        && ((byte[]) data.get(1)).length >= MIN_ASYNC_BYTES;
+  }
+
+  /**
+   * Returns the icon right away if it is cached. Otherwise starts decoding it, replacing any
+   * pending icon of the marker, and returns null.
+   */
+  BitmapDescriptor decode(String markerId, List<?> icon, final Callback callback) {
+    cancel(markerId);
+    final String cacheKey = BitmapDescriptorCache.key(icon);
+    final BitmapDescriptor cached = BitmapDescriptorCache.getInstance().get(cacheKey);
+    if (cached != null) {
+      return cached;
+    }
+    markerIdToCacheKey.put(markerId, cacheKey);
+    PendingDecode pending = pendingByCacheKey.get(cacheKey);
+    if (pending != null) {
+      pending.markerIds.add(markerId);
+      return null;
+    }
+    final PendingDecode newPending = new PendingDecode();
+    newPending.markerIds.add(markerId);
+    pendingByCacheKey.put(cacheKey, newPending);
+    final byte[] bytes = (byte[]) icon.get(1);
+    newPending.future =
+        executor.submit(
+            new Runnable() {
+              @Override
+              public void run() {
+                final Bitmap bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+                mainHandler.post(
+                    new Runnable() {
+                      @Override
+                      public void run() {
+                        if (pendingByCacheKey.get(cacheKey) != newPending) {
+                          return;
+                        }
+                        pendingByCacheKey.remove(cacheKey);
+                        if (bitmap == null) {
+                          Log.e(TAG, "Unable to decode bytes as a valid bitmap.");
+                          for (String waitingMarkerId : newPending.markerIds) {
+                            markerIdToCacheKey.remove(waitingMarkerId);
+                            callback.onIconDecodeFailed(waitingMarkerId);
+                          }
+                          return;
+                        }
+                        final BitmapDescriptor descriptor =
+                            BitmapDescriptorFactory.fromBitmap(bitmap);
+                        BitmapDescriptorCache.getInstance()
+                            .put(cacheKey, descriptor, BitmapPool.sizeOf(bitmap));
+                        for (String waitingMarkerId : newPending.markerIds) {
+                          markerIdToCacheKey.remove(waitingMarkerId);
+                          callback.onIconDecoded(waitingMarkerId, descriptor);
+                        }
+                      }
+                    });
+              }
+            });
+    return null;
+  }
+
+  /** Stops waiting for the marker's pending icon, if any. */
+  void cancel(String markerId) {
+    final String cacheKey = markerIdToCacheKey.remove(markerId);
+    if (cacheKey == null) {
+      return;
+    }
+    final PendingDecode pending = pendingByCacheKey.get(cacheKey);
+    pending.markerIds.remove(markerId);
+    if (pending.markerIds.isEmpty()) {
+      pending.future.cancel(true);
+      pendingByCacheKey.remove(cacheKey);
+    }
+  }
+
+  void dispose() {
+    for (PendingDecode pending : pendingByCacheKey.values()) {
+      pending.future.cancel(true);
+    }
+    pendingByCacheKey.clear();
+    markerIdToCacheKey.clear();
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,80 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.SparseArray;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+
+/**
+ * Icons uploaded once through {@code icons#register} and referred to by an integer handle after
+ * that, so that markers sharing an icon don't resend its bytes over the channel.
+ *
+ * <p>Handles are unique in the process. Each icon belongs to the map that registered it and is
+ * released when that map is disposed, if it wasn't unregistered before. Must be used on the main
+ * thread.
+ */
+class IconRegistry {
+  private static IconRegistry instance;
+
+  private static final class Icon {
+    final BitmapDescriptor descriptor;
+    final int ownerId;
+
+    Icon(BitmapDescriptor descriptor, int ownerId) {
+      this.descriptor = descriptor;
+      this.ownerId = ownerId;
+    }
+  }
+
+  private final SparseArray<Icon> icons = new SparseArray<>();
+  private int nextHandle = 1;
+
+  static IconRegistry getInstance() {
+    if (instance == null) {
+      instance = new IconRegistry();
+    }
+    return instance;
+  }
+
+  /** Decodes the image and returns its handle. */
+  int register(int ownerId, byte[] bytes) {
+    if (bytes == null) {
+      throw new IllegalArgumentException("Icon bytes were null");
+    }
+    final Bitmap bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+    if (bitmap == null) {
+      throw new IllegalArgumentException("Unable to decode bytes as a valid bitmap.");
+    }
+    return register(ownerId, BitmapDescriptorFactory.fromBitmap(bitmap));
+  }
+
+  int register(int ownerId, BitmapDescriptor descriptor) {
+    final int handle = nextHandle++;
+    icons.put(handle, new Icon(descriptor, ownerId));
+    return handle;
+  }
+
+  void unregister(int handle) {
+    icons.remove(handle);
+  }
+
+  /** Releases every icon registered by the map. */
+  void releaseAll(int ownerId) {
+    for (int i = icons.size() - 1; i >= 0; i--) {
+      if (icons.valueAt(i).ownerId == ownerId) {
+        icons.removeAt(i);
+      }
+    }
+  }
+
+  /** Returns the icon's descriptor, or null if the handle is not registered. */
+  BitmapDescriptor get(int handle) {
+    final Icon icon = icons.get(handle);
+    return icon == null ? null : icon.descriptor;
+  }
+}
@@ -0,0 +1,220 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.view.Choreographer;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import io.flutter.plugin.common.MethodChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds the overlays the map was created with over several frames, so that a large initial set
+ * does not block the first frames.
+ *
+ * <p>Each frame adds overlays for at most the frame budget, those inside the initial viewport
+ * first. Progress is reported to Dart as {@code map#onInitialOverlaysProgress} after every frame.
+ * Must be used on the main thread.
+ *
+ * <p>The loader keeps its own lists of the overlays, so the lists it is started with can be
+ * released right away. Each list is released in turn once its overlays were added.
+ */
+class InitialOverlayLoader implements Choreographer.FrameCallback {
+  // Overlays added between checks of the frame budget.
+  private static final int BATCH_SIZE = 16;
+
+  private static final int MARKERS = 0;
+  private static final int POLYGONS = 1;
+  private static final int POLYLINES = 2;
+  private static final int CIRCLES = 3;
+
+  /** Overlays of one kind, added in order. */
+  private static final class Stage {
+    final int kind;
+    final List<Object> overlays;
+
+    Stage(int kind, List<Object> overlays) {
+      this.kind = kind;
+      this.overlays = overlays;
+    }
+  }
+
+  private final MethodChannel methodChannel;
+  private final MarkersController markersController;
+  private final PolygonsController polygonsController;
+  private final PolylinesController polylinesController;
+  private final CirclesController circlesController;
+  private final long frameBudgetNanos;
+  private final List<Stage> stages = new ArrayList<>();
+  private int stageIndex;
+  // Index of the next overlay to add in the current stage.
+  private int offset;
+  private int loaded;
+  private int total;
+  private boolean frameScheduled;
+
+  InitialOverlayLoader(
+      MethodChannel methodChannel,
+      MarkersController markersController,
+      PolygonsController polygonsController,
+      PolylinesController polylinesController,
+      CirclesController circlesController,
+      int frameBudgetMillis) {
+    this.methodChannel = methodChannel;
+    this.markersController = markersController;
+    this.polygonsController = polygonsController;
+    this.polylinesController = polylinesController;
+    this.circlesController = circlesController;
+    this.frameBudgetNanos = frameBudgetMillis * 1000000L;
+  }
+
+  /** Adds the first frame's overlays now and schedules the rest. */
+  void start(
+      LatLngBounds viewport,
+      List<Object> markers,
+      List<Object> polygons,
+      List<Object> polylines,
+      List<Object> circles) {
+    final List<Stage> outside = new ArrayList<>();
+    addStages(MARKERS, markers, viewport, outside);
+    addStages(POLYGONS, polygons, viewport, outside);
+    addStages(POLYLINES, polylines, viewport, outside);
+    addStages(CIRCLES, circles, viewport, outside);
+    stages.addAll(outside);
+    if (total > 0) {
+      load(System.nanoTime() + frameBudgetNanos);
+    }
+  }
+
+  boolean isLoading() {
+    return loaded < total;
+  }
+
+  /** The number of overlays not added yet, which this loader still holds on to. */
+  int remaining() {
+    return total - loaded;
+  }
+
+  /** Adds the remaining overlays at once, e.g. before applying updates that may refer to them. */
+  void finish() {
+    if (!isLoading()) {
+      return;
+    }
+    cancel();
+    load(Long.MAX_VALUE);
+  }
+
+  /** Stops adding overlays, leaving the remaining ones off the map. */
+  void cancel() {
+    if (frameScheduled) {
+      frameScheduled = false;
+      Choreographer.getInstance().removeFrameCallback(this);
+    }
+  }
+
+  @Override
+  public void doFrame(long frameTimeNanos) {
+    frameScheduled = false;
+    load(System.nanoTime() + frameBudgetNanos);
+  }
+
+  private void load(long deadlineNanos) {
+    do {
+      final Stage stage = stages.get(stageIndex);
+      final int end = Math.min(offset + BATCH_SIZE, stage.overlays.size());
+      add(stage.kind, stage.overlays.subList(offset, end));
+      loaded += end - offset;
+      offset = end;
+      if (offset == stage.overlays.size()) {
+        // Release the stage's options, the controllers keep what they need.
+        stages.set(stageIndex, null);
+        stageIndex++;
+        offset = 0;
+      }
+    } while (isLoading() && System.nanoTime() < deadlineNanos);
+    if (isLoading()) {
+      frameScheduled = true;
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+    final Map<String, Object> arguments = new HashMap<>(2);
+    arguments.put("loaded", loaded);
+    arguments.put("total", total);
+    methodChannel.invokeMethod("map#onInitialOverlaysProgress", arguments);
+  }
+
+  private void add(int kind, List<Object> overlays) {
+    switch (kind) {
+      case MARKERS:
+        markersController.addMarkers(overlays);
+        break;
+      case POLYGONS:
+        polygonsController.addPolygons(overlays);
+        break;
+      case POLYLINES:
+        polylinesController.addPolylines(overlays);
+        break;
+      case CIRCLES:
+        circlesController.addCircles(overlays);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown overlay kind " + kind);
+    }
+  }
+
+  /** Adds a stage for the overlays inside the viewport, and one to outside for the others. */
+  private void addStages(
+      int kind, List<Object> overlays, LatLngBounds viewport, List<Stage> outside) {
+    if (overlays == null || overlays.isEmpty()) {
+      return;
+    }
+    final List<Object> inside = new ArrayList<>();
+    final List<Object> others = new ArrayList<>();
+    for (Object overlay : overlays) {
+      final LatLng anchor = anchor(kind, overlay);
+      if (anchor != null && viewport.contains(anchor)) {
+        inside.add(overlay);
+      } else {
+        others.add(overlay);
+      }
+    }
+    if (!inside.isEmpty()) {
+      stages.add(new Stage(kind, inside));
+    }
+    if (!others.isEmpty()) {
+      outside.add(new Stage(kind, others));
+    }
+    total += overlays.size();
+  }
+
+  /** Returns the position that decides whether the overlay is in view, or null. */
+  private static LatLng anchor(int kind, Object overlay) {
+    if (!(overlay instanceof Map)) {
+      return null;
+    }
+    final Map<?, ?> options = (Map<?, ?>) overlay;
+    switch (kind) {
+      case MARKERS:
+        return options.get("position") == null ? null : Convert.toLatLng(options.get("position"));
+      case CIRCLES:
+        return options.get("center") == null ? null : Convert.toLatLng(options.get("center"));
+      default:
+        return firstPoint(options.get("points"));
+    }
+  }
+
+  private static LatLng firstPoint(Object points) {
+    if (points instanceof double[]) {
+      final double[] data = (double[]) points;
+      return data.length < 2 ? null : new LatLng(data[0], data[1]);
+    }
+    if (points instanceof List && !((List<?>) points).isEmpty()) {
+      return Convert.toLatLng(((List<?>) points).get(0));
+    }
+    return null;
+  }
+}
@@ -0,0 +1,143 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.util.Log;
+import com.google.android.gms.maps.model.CameraPosition;
+import com.google.android.gms.maps.model.LatLng;
+import io.flutter.plugin.common.BasicMessageChannel;
+import io.flutter.plugin.common.BinaryCodec;
+import io.flutter.plugin.common.BinaryMessenger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Carries the high-frequency map traffic as compact binary messages, next to the method channel.
+ *
+ * <p>Every message starts with a version byte and a type byte, followed by the little-endian
+ * payload of that type. Strings are a uint16 byte length followed by UTF-8 bytes, and positions
+ * are a float64 latitude followed by a float64 longitude. Messages of another version are
+ * dropped.
+ *
+ * <ul>
+ *   <li>{@link #CAMERA_MOVE}, to Dart: bearing, target position, tilt and zoom as float64.
+ *   <li>{@link #CAMERA_IDLE}, to Dart: no payload.
+ *   <li>{@link #MARKER_POSITIONS}, from Dart: a uint32 count, then a marker id and a position for
+ *       each marker.
+ *   <li>{@link #POLYLINE_POINTS}, from Dart: a polyline id, a uint32 count, then the positions.
+ * </ul>
+ */
+class MapBinaryChannel implements BasicMessageChannel.MessageHandler<ByteBuffer> {
+  private static final String TAG = "MapBinaryChannel";
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  static final byte VERSION = 1;
+  static final byte CAMERA_MOVE = 1;
+  static final byte CAMERA_IDLE = 2;
+  static final byte MARKER_POSITIONS = 3;
+  static final byte POLYLINE_POINTS = 4;
+
+  /** Receives the messages sent from Dart, on the main thread. */
+  interface Listener {
+    void onMarkerPositions(List<String> markerIds, List<LatLng> positions);
+
+    void onPolylinePoints(String polylineId, List<LatLng> points);
+  }
+
+  private final BasicMessageChannel<ByteBuffer> channel;
+  private final Listener listener;
+  // Reused by outgoing camera messages. The messenger copies the bytes before send returns.
+  private final ByteBuffer cameraBuffer =
+      ByteBuffer.allocateDirect(2 + 5 * 8).order(ByteOrder.LITTLE_ENDIAN);
+
+  MapBinaryChannel(BinaryMessenger messenger, int id, Listener listener) {
+    this.channel =
+        new BasicMessageChannel<>(
+            messenger, "plugins.flutter.io/google_maps_binary_" + id, BinaryCodec.INSTANCE);
+    this.listener = listener;
+    channel.setMessageHandler(this);
+  }
+
+  void dispose() {
+    channel.setMessageHandler(null);
+  }
+
+  void sendCameraMove(CameraPosition position) {
+    cameraBuffer.clear();
+    cameraBuffer.put(VERSION).put(CAMERA_MOVE);
+    cameraBuffer.putDouble(position.bearing);
+    cameraBuffer.putDouble(position.target.latitude);
+    cameraBuffer.putDouble(position.target.longitude);
+    cameraBuffer.putDouble(position.tilt);
+    cameraBuffer.putDouble(position.zoom);
+    // The message is the bytes before the buffer position.
+    channel.send(cameraBuffer);
+  }
+
+  void sendCameraIdle() {
+    cameraBuffer.clear();
+    cameraBuffer.put(VERSION).put(CAMERA_IDLE);
+    channel.send(cameraBuffer);
+  }
+
+  @Override
+  public void onMessage(ByteBuffer message, BasicMessageChannel.Reply<ByteBuffer> reply) {
+    try {
+      if (message == null) {
+        return;
+      }
+      message.order(ByteOrder.LITTLE_ENDIAN);
+      final byte version = message.get();
+      if (version != VERSION) {
+        Log.e(TAG, "Dropping message of unsupported version " + version);
+        return;
+      }
+      final byte type = message.get();
+      switch (type) {
+        case MARKER_POSITIONS:
+          {
+            final int count = message.getInt();
+            final List<String> markerIds = new ArrayList<>(count);
+            final List<LatLng> positions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+              markerIds.add(readString(message));
+              positions.add(readLatLng(message));
+            }
+            listener.onMarkerPositions(markerIds, positions);
+            break;
+          }
+        case POLYLINE_POINTS:
+          {
+            final String polylineId = readString(message);
+            final int count = message.getInt();
+            final List<LatLng> points = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+              points.add(readLatLng(message));
+            }
+            listener.onPolylinePoints(polylineId, points);
+            break;
+          }
+        default:
+          Log.e(TAG, "Dropping message of unknown type " + type);
+      }
+    } finally {
+      reply.reply(null);
+    }
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    final byte[] bytes = new byte[buffer.getShort() & 0xffff];
+    buffer.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  private static LatLng readLatLng(ByteBuffer buffer) {
+    final double latitude = buffer.getDouble();
+    return new LatLng(latitude, buffer.getDouble());
+  }
+}
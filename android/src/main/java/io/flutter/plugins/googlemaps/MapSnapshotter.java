@@ -0,0 +1,195 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import com.google.android.gms.maps.GoogleMap;
+import io.flutter.plugin.common.MethodChannel;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Takes snapshots of the map and encodes them off the platform main thread.
+ *
+ * <p>The map-sized and the requested-size bitmaps are kept and drawn into again by the next
+ * snapshot, so repeated snapshots of the same size allocate no pixels. Snapshots are taken one at
+ * a time, as the bitmaps are in use until their encoding is done. Must be used on the main thread.
+ */
+class MapSnapshotter {
+  private static final String TAG = "MapSnapshotter";
+
+  static final int FORMAT_PNG = 0;
+  static final int FORMAT_WEBP = 1;
+
+  private static final class Request {
+    final GoogleMap googleMap;
+    final int width;
+    final int height;
+    final Bitmap.CompressFormat format;
+    final int quality;
+    final MethodChannel.Result result;
+
+    Request(
+        GoogleMap googleMap,
+        int width,
+        int height,
+        Bitmap.CompressFormat format,
+        int quality,
+        MethodChannel.Result result) {
+      this.googleMap = googleMap;
+      this.width = width;
+      this.height = height;
+      this.format = format;
+      this.quality = quality;
+      this.result = result;
+    }
+  }
+
+  private final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+              Thread thread =
+                  new Thread(
+                      new Runnable() {
+                        @Override
+                        public void run() {
+                          Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                          runnable.run();
+                        }
+                      },
+                      TAG);
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final Paint scalePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+  private final ArrayDeque<Request> requests = new ArrayDeque<>();
+  private Bitmap mapBitmap;
+  private Bitmap scaledBitmap;
+  // The request being taken or encoded.
+  private Request current;
+  private boolean disposed;
+
+  /**
+   * Replies to the result with the encoded snapshot.
+   *
+   * @param width the snapshot's width in pixels, or 0 for the map's size. Only used with height.
+   * @param format {@link #FORMAT_PNG} or {@link #FORMAT_WEBP}.
+   * @param quality from 0 to 100, ignored for PNG.
+   */
+  void takeSnapshot(
+      GoogleMap googleMap,
+      int width,
+      int height,
+      int format,
+      int quality,
+      MethodChannel.Result result) {
+    if (format != FORMAT_PNG && format != FORMAT_WEBP) {
+      throw new IllegalArgumentException("Unknown snapshot format " + format);
+    }
+    if (width < 0 || height < 0 || quality < 0 || quality > 100) {
+      throw new IllegalArgumentException("Invalid snapshot size or quality");
+    }
+    final Bitmap.CompressFormat compressFormat =
+        format == FORMAT_PNG ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.WEBP;
+    requests.add(new Request(googleMap, width, height, compressFormat, quality, result));
+    if (current == null) {
+      takeNext();
+    }
+  }
+
+  void dispose() {
+    disposed = true;
+    if (!executor.shutdownNow().isEmpty()) {
+      // The current snapshot's encoding had not started and never will.
+      current.result.error("Map disposed", "The map was disposed", null);
+    }
+    while (!requests.isEmpty()) {
+      requests.removeFirst().result.error("Map disposed", "The map was disposed", null);
+    }
+    mapBitmap = null;
+    scaledBitmap = null;
+  }
+
+  private void takeNext() {
+    final Request request = requests.pollFirst();
+    current = request;
+    if (request == null) {
+      return;
+    }
+    request.googleMap.snapshot(
+        new GoogleMap.SnapshotReadyCallback() {
+          @Override
+          public void onSnapshotReady(Bitmap bitmap) {
+            if (disposed) {
+              request.result.error("Map disposed", "The map was disposed", null);
+              return;
+            }
+            if (bitmap == null) {
+              request.result.error("Snapshot failed", "The map could not be drawn", null);
+              takeNext();
+              return;
+            }
+            mapBitmap = bitmap;
+            encode(request, scale(bitmap, request.width, request.height));
+          }
+        },
+        mapBitmap);
+  }
+
+  /** Returns the snapshot drawn at the requested size, reusing the previous scaled bitmap. */
+  private Bitmap scale(Bitmap bitmap, int width, int height) {
+    if (width == 0
+        || height == 0
+        || (width == bitmap.getWidth() && height == bitmap.getHeight())) {
+      return bitmap;
+    }
+    if (scaledBitmap == null
+        || scaledBitmap.getWidth() != width
+        || scaledBitmap.getHeight() != height) {
+      scaledBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+    new Canvas(scaledBitmap).drawBitmap(bitmap, null, new Rect(0, 0, width, height), scalePaint);
+    return scaledBitmap;
+  }
+
+  private void encode(final Request request, final Bitmap bitmap) {
+    executor.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            final boolean encoded = bitmap.compress(request.format, request.quality, stream);
+            final byte[] bytes = stream.toByteArray();
+            mainHandler.post(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    if (encoded) {
+                      request.result.success(bytes);
+                    } else {
+                      request.result.error("Snapshot failed", "Unable to encode snapshot", null);
+                    }
+                    if (!disposed) {
+                      takeNext();
+                    }
+                  }
+                });
+          }
+        });
+  }
+}
@@ -0,0 +1,155 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import com.google.android.gms.maps.CameraUpdateFactory;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.GoogleMapOptions;
+import com.google.android.gms.maps.MapView;
+import com.google.android.gms.maps.OnMapReadyCallback;
+import com.google.android.gms.maps.UiSettings;
+import java.util.ArrayDeque;
+
+/**
+ * Map views that were created ahead of time, or kept from disposed maps, so that opening a map
+ * does not pay for creating and initializing a new one.
+ *
+ * <p>Views in the pool have been through {@code onCreate} and nothing after it, and have no
+ * overlays or listeners. They belong to the activity the pool was warmed for, and are destroyed
+ * when it is. The pool is off until {@link #prewarm} is called. Must be used on the main thread.
+ */
+class MapViewPool implements MessageQueue.IdleHandler {
+  private static MapViewPool instance;
+
+  private static final OnMapReadyCallback IGNORE_MAP =
+      new OnMapReadyCallback() {
+        @Override
+        public void onMapReady(GoogleMap googleMap) {}
+      };
+
+  private final ArrayDeque<MapView> views = new ArrayDeque<>();
+  private Activity activity;
+  private int capacity;
+  private boolean idleHandlerAdded;
+
+  static MapViewPool getInstance() {
+    if (instance == null) {
+      instance = new MapViewPool();
+    }
+    return instance;
+  }
+
+  /** Keeps up to count views for the activity, creating the missing ones when the app is idle. */
+  void prewarm(Activity activity, int count) {
+    if (activity != this.activity) {
+      clear();
+      this.activity = activity;
+    }
+    capacity = count;
+    while (views.size() > capacity) {
+      views.removeLast().onDestroy();
+    }
+    if (views.size() < capacity && !idleHandlerAdded) {
+      idleHandlerAdded = true;
+      Looper.myQueue().addIdleHandler(this);
+    }
+  }
+
+  /** Destroys the pooled views and turns the pool off. */
+  void clear() {
+    capacity = 0;
+    activity = null;
+    while (!views.isEmpty()) {
+      views.removeFirst().onDestroy();
+    }
+  }
+
+  /** Creates one view per idle pass, so that warming up never takes more than a frame. */
+  @Override
+  public boolean queueIdle() {
+    if (activity != null && views.size() < capacity) {
+      final MapView view = new MapView(activity, new GoogleMapOptions());
+      view.onCreate(null);
+      // Loads the map now rather than when the view is first used.
+      view.getMapAsync(IGNORE_MAP);
+      views.add(view);
+    }
+    idleHandlerAdded = activity != null && views.size() < capacity;
+    return idleHandlerAdded;
+  }
+
+  /** Returns a pooled view that can be shown with the options, or null to create a new one. */
+  MapView acquire(Activity activity, GoogleMapOptions options) {
+    if (activity != this.activity || views.isEmpty() || !canReuse(options)) {
+      return null;
+    }
+    final MapView view = views.removeFirst();
+    detach(view);
+    prewarm(activity, capacity);
+    return view;
+  }
+
+  /** Whether {@link #release} would take a view of the activity. */
+  boolean hasRoom(Activity activity) {
+    return activity == this.activity && views.size() < capacity;
+  }
+
+  /**
+   * Takes back the view of a disposed map that was cleared and brought back to the created state.
+   * Only valid after {@link #hasRoom} returned true.
+   */
+  void release(MapView view) {
+    detach(view);
+    views.add(view);
+  }
+
+  /** Whether a view created without the options can be made to look like one created with them. */
+  static boolean canReuse(GoogleMapOptions options) {
+    return !Boolean.TRUE.equals(options.getLiteMode())
+        && !Boolean.TRUE.equals(options.getZOrderOnTop());
+  }
+
+  /** Applies the options that a new view would have been created with to a pooled view's map. */
+  static void applyOptions(GoogleMap googleMap, GoogleMapOptions options) {
+    if (options.getCamera() != null) {
+      googleMap.moveCamera(CameraUpdateFactory.newCameraPosition(options.getCamera()));
+    }
+    // -1 when the options leave the map type unset.
+    googleMap.setMapType(
+        options.getMapType() == -1 ? GoogleMap.MAP_TYPE_NORMAL : options.getMapType());
+    googleMap.setLatLngBoundsForCameraTarget(options.getLatLngBoundsForCameraTarget());
+    googleMap.resetMinMaxZoomPreference();
+    if (options.getMinZoomPreference() != null) {
+      googleMap.setMinZoomPreference(options.getMinZoomPreference());
+    }
+    if (options.getMaxZoomPreference() != null) {
+      googleMap.setMaxZoomPreference(options.getMaxZoomPreference());
+    }
+    final UiSettings uiSettings = googleMap.getUiSettings();
+    uiSettings.setCompassEnabled(isEnabled(options.getCompassEnabled()));
+    uiSettings.setMapToolbarEnabled(isEnabled(options.getMapToolbarEnabled()));
+    uiSettings.setRotateGesturesEnabled(isEnabled(options.getRotateGesturesEnabled()));
+    uiSettings.setScrollGesturesEnabled(isEnabled(options.getScrollGesturesEnabled()));
+    uiSettings.setTiltGesturesEnabled(isEnabled(options.getTiltGesturesEnabled()));
+    uiSettings.setZoomGesturesEnabled(isEnabled(options.getZoomGesturesEnabled()));
+  }
+
+  // The options' getters return null for the settings that were left at their default of true.
+  private static boolean isEnabled(Boolean enabled) {
+    return enabled == null || enabled;
+  }
+
+  private static void detach(MapView view) {
+    final ViewParent parent = view.getParent();
+    if (parent instanceof ViewGroup) {
+      ((ViewGroup) parent).removeView(view);
+    }
+  }
+}
@@ -0,0 +1,137 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.view.Choreographer;
+import com.google.android.gms.maps.model.LatLng;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Moves markers smoothly to streamed positions, one step per display frame.
+ *
+ * <p>A new target for a marker that is still moving starts from where the marker currently is, so
+ * a stream of targets produces continuous motion. Must be used on the main thread.
+ */
+class MarkerAnimator implements Choreographer.FrameCallback {
+
+  private static final class Animation {
+    final MarkerController controller;
+    final LatLng from;
+    final LatLng to;
+    final float fromRotation;
+    final float toRotation;
+    final long startNanos;
+    final long durationNanos;
+
+    Animation(
+        MarkerController controller,
+        LatLng from,
+        LatLng to,
+        float fromRotation,
+        float toRotation,
+        long durationNanos) {
+      this.controller = controller;
+      this.from = from;
+      this.to = to;
+      this.fromRotation = fromRotation;
+      this.toRotation = toRotation;
+      this.startNanos = System.nanoTime();
+      this.durationNanos = durationNanos;
+    }
+  }
+
+  private final Map<String, Animation> animations = new HashMap<>();
+  private boolean frameScheduled;
+
+  /** Moves the marker to the position and rotation over the duration, or at once if it is 0. */
+  void animate(
+      String markerId,
+      MarkerController controller,
+      LatLng to,
+      float rotation,
+      long durationMillis) {
+    if (durationMillis <= 0) {
+      animations.remove(markerId);
+      controller.setPosition(to);
+      controller.setRotation(rotation);
+      return;
+    }
+    animations.put(
+        markerId,
+        new Animation(
+            controller,
+            controller.getPosition(),
+            to,
+            controller.getRotation(),
+            rotation,
+            durationMillis * 1000000));
+    if (!frameScheduled) {
+      frameScheduled = true;
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+  }
+
+  /** Leaves the marker where it currently is. */
+  void cancel(String markerId) {
+    animations.remove(markerId);
+  }
+
+  void cancelAll() {
+    animations.clear();
+    if (frameScheduled) {
+      frameScheduled = false;
+      Choreographer.getInstance().removeFrameCallback(this);
+    }
+  }
+
+  @Override
+  public void doFrame(long frameTimeNanos) {
+    frameScheduled = false;
+    final Iterator<Animation> iterator = animations.values().iterator();
+    while (iterator.hasNext()) {
+      final Animation animation = iterator.next();
+      final long elapsedNanos = frameTimeNanos - animation.startNanos;
+      final float fraction =
+          Math.min(1f, Math.max(0f, (float) elapsedNanos / animation.durationNanos));
+      final float rotationDelta = angleDelta(animation.fromRotation, animation.toRotation);
+      animation.controller.setPosition(interpolate(animation.from, animation.to, fraction));
+      animation.controller.setRotation(animation.fromRotation + rotationDelta * fraction);
+      if (fraction >= 1f) {
+        iterator.remove();
+      }
+    }
+    if (!animations.isEmpty()) {
+      frameScheduled = true;
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+  }
+
+  /** Interpolates linearly, crossing the antimeridian when that is shorter. */
+  private static LatLng interpolate(LatLng from, LatLng to, float fraction) {
+    double longitudeDelta = to.longitude - from.longitude;
+    if (longitudeDelta > 180) {
+      longitudeDelta -= 360;
+    } else if (longitudeDelta < -180) {
+      longitudeDelta += 360;
+    }
+    // LatLng wraps the longitude back into range.
+    return new LatLng(
+        from.latitude + (to.latitude - from.latitude) * fraction,
+        from.longitude + longitudeDelta * fraction);
+  }
+
+  /** Returns the signed rotation in (-180, 180] degrees that turns the shorter way. */
+  private static float angleDelta(float from, float to) {
+    float delta = (to - from) % 360;
+    if (delta > 180) {
+      delta -= 360;
+    } else if (delta <= -180) {
+      delta += 360;
+    }
+    return delta;
+  }
+}
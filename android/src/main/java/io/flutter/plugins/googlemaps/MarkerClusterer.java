@@ -0,0 +1,204 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import com.google.android.gms.maps.model.LatLng;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Groups markers that are close together on screen, off the platform main thread.
+ *
+ * <p>Markers are bucketed into a grid of square cells laid over the Web Mercator world at the
+ * camera zoom. The grid is anchored to the world rather than to the viewport, so clusters stay
+ * put while panning. Requesting a new clustering supersedes the pending one, and results are
+ * delivered on the main looper.
+ */
+class MarkerClusterer {
+  private static final String TAG = "MarkerClusterer";
+  // Both in density-independent pixels, the unit the map uses for its 256 wide zoom 0 world.
+  private static final double WORLD_SIZE_DP = 256;
+  private static final double CELL_SIZE_DP = 64;
+
+  /** Receives clustering results on the main looper. */
+  interface Callback {
+    void onClustered(Result result);
+  }
+
+  /** Two or more markers shown as a single map marker. */
+  static final class Cluster {
+    // Identifies the grid cell, so the same cluster can be recognized across clusterings.
+    final String key;
+    final LatLng position;
+    final List<String> markerIds;
+
+    Cluster(String key, LatLng position, List<String> markerIds) {
+      this.key = key;
+      this.position = position;
+      this.markerIds = markerIds;
+    }
+  }
+
+  static final class Result {
+    // Markers that are shown on their own.
+    final List<String> unclusteredMarkerIds;
+    final List<Cluster> clusters;
+
+    Result(List<String> unclusteredMarkerIds, List<Cluster> clusters) {
+      this.unclusteredMarkerIds = unclusteredMarkerIds;
+      this.clusters = clusters;
+    }
+  }
+
+  private static final class Cell {
+    final List<String> markerIds = new ArrayList<>();
+    double xSum;
+    double ySum;
+  }
+
+  private final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+              Thread thread =
+                  new Thread(
+                      new Runnable() {
+                        @Override
+                        public void run() {
+                          Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                          runnable.run();
+                        }
+                      },
+                      TAG);
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  // Only accessed on the main thread.
+  private int generation;
+  private Future<?> pending;
+
+  /**
+   * Clusters the given markers for the zoom level.
+   *
+   * @param markers the Dart options of each marker. They are read on a background thread and must
+   *     not be modified afterwards.
+   */
+  void cluster(final List<Object> markers, final float zoom, final Callback callback) {
+    cancel();
+    final int expectedGeneration = generation;
+    pending =
+        executor.submit(
+            new Runnable() {
+              @Override
+              public void run() {
+                final Result result;
+                try {
+                  result = computeClusters(markers, zoom);
+                } catch (RuntimeException e) {
+                  Log.e(TAG, "Unable to cluster markers", e);
+                  return;
+                }
+                mainHandler.post(
+                    new Runnable() {
+                      @Override
+                      public void run() {
+                        if (generation != expectedGeneration) {
+                          return;
+                        }
+                        pending = null;
+                        callback.onClustered(result);
+                      }
+                    });
+              }
+            });
+  }
+
+  void cancel() {
+    generation++;
+    if (pending != null) {
+      pending.cancel(true);
+      pending = null;
+    }
+  }
+
+  void dispose() {
+    cancel();
+    executor.shutdownNow();
+  }
+
+  static Result computeClusters(List<Object> markers, float zoom) {
+    // The grid only changes at whole zoom levels, so clusters don't churn during a pinch.
+    final int zoomLevel = (int) Math.floor(zoom);
+    final double cellsPerWorld = WORLD_SIZE_DP * Math.pow(2, zoomLevel) / CELL_SIZE_DP;
+    final List<String> unclustered = new ArrayList<>();
+    final Map<Long, Cell> cells = new HashMap<>();
+    for (Object marker : markers) {
+      final Map<?, ?> data = (Map<?, ?>) marker;
+      final String markerId = (String) data.get("markerId");
+      final Object position = data.get("position");
+      if (position == null || Boolean.FALSE.equals(data.get("visible"))) {
+        // Hidden markers are never clustered, so they keep their own visibility.
+        unclustered.add(markerId);
+        continue;
+      }
+      final LatLng latLng = Convert.toLatLng(position);
+      final double x = (latLng.longitude + 180) / 360;
+      final double y = worldY(latLng.latitude);
+      final long cellX = (long) Math.floor(x * cellsPerWorld);
+      final long cellY = (long) Math.floor(y * cellsPerWorld);
+      final Long cellKey = (cellX << 32) | (cellY & 0xffffffffL);
+      Cell cell = cells.get(cellKey);
+      if (cell == null) {
+        cell = new Cell();
+        cells.put(cellKey, cell);
+      }
+      cell.markerIds.add(markerId);
+      cell.xSum += x;
+      cell.ySum += y;
+    }
+    final List<Cluster> clusters = new ArrayList<>();
+    for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+      final Cell cell = entry.getValue();
+      if (cell.markerIds.size() == 1) {
+        unclustered.add(cell.markerIds.get(0));
+        continue;
+      }
+      final int count = cell.markerIds.size();
+      clusters.add(
+          new Cluster(
+              zoomLevel + "/" + entry.getKey(),
+              fromWorld(cell.xSum / count, cell.ySum / count),
+              Collections.unmodifiableList(cell.markerIds)));
+    }
+    return new Result(unclustered, clusters);
+  }
+
+  /** Web Mercator y in [0, 1], from north to south. */
+  private static double worldY(double latitude) {
+    final double sinLatitude = Math.sin(Math.toRadians(latitude));
+    final double y = 0.5 - Math.log((1 + sinLatitude) / (1 - sinLatitude)) / (4 * Math.PI);
+    return Math.max(0, Math.min(1, y));
+  }
+
+  private static LatLng fromWorld(double x, double y) {
+    final double longitude = x * 360 - 180;
+    final double latitude = Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y))));
+    return new LatLng(latitude, longitude);
+  }
+}
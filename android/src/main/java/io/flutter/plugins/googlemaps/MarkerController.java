@@ -12,13 +12,11 @@ import com.google.android.gms.maps.model.Marker;
 class MarkerController implements MarkerOptionsSink {
 
   private final Marker marker;
-  private final String googleMapsMarkerId;
   private boolean consumeTapEvents;
 
   MarkerController(Marker marker, boolean consumeTapEvents) {
     this.marker = marker;
     this.consumeTapEvents = consumeTapEvents;
-    this.googleMapsMarkerId = marker.getId();
   }
 
   void remove() {
@@ -86,8 +84,12 @@ class MarkerController implements MarkerOptionsSink {
     marker.setZIndex(zIndex);
   }
 
-  String getGoogleMapsMarkerId() {
-    return googleMapsMarkerId;
+  LatLng getPosition() {
+    return marker.getPosition();
+  }
+
+  float getRotation() {
+    return marker.getRotation();
   }
 
   boolean consumeTapEvents() {
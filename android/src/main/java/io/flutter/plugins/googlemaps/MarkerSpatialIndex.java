@@ -0,0 +1,147 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import com.google.android.gms.maps.model.LatLng;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the markers inside a latitude/longitude rectangle without looking at every marker.
+ *
+ * <p>Markers are bucketed into a sparse grid of fixed-size cells. Queries visit the cells that
+ * overlap the rectangle, or every occupied cell when that is cheaper, so both zoomed-in and
+ * zoomed-out viewports stay proportional to what they contain. Markers without a position are
+ * returned by every query.
+ */
+class MarkerSpatialIndex {
+  private static final double CELL_DEGREES = 0.5;
+  private static final int COLUMNS = (int) (360 / CELL_DEGREES);
+  private static final int ROWS = (int) (180 / CELL_DEGREES);
+
+  /** A latitude/longitude rectangle, which crosses the antimeridian if west is east of east. */
+  static final class Region {
+    final double south;
+    final double west;
+    final double north;
+    final double east;
+
+    Region(double south, double west, double north, double east) {
+      this.south = south;
+      this.west = west;
+      this.north = north;
+      this.east = east;
+    }
+
+    /** Positionless markers count as being everywhere. */
+    boolean contains(LatLng position) {
+      if (position == null) {
+        return true;
+      }
+      final double longitude = position.longitude;
+      final boolean insideLongitude =
+          west <= east
+              ? longitude >= west && longitude <= east
+              : longitude >= west || longitude <= east;
+      return insideLongitude && position.latitude >= south && position.latitude <= north;
+    }
+  }
+
+  // Marker positions by marker id, per occupied cell.
+  private final Map<Integer, Map<String, LatLng>> cells = new HashMap<>();
+  private final Map<String, Integer> markerIdToCell = new HashMap<>();
+  private final Set<String> unpositioned = new HashSet<>();
+
+  /** Adds the marker, or moves it if it is already indexed. */
+  void put(String markerId, LatLng position) {
+    remove(markerId);
+    if (position == null) {
+      unpositioned.add(markerId);
+      return;
+    }
+    final int cell = cell(row(position.latitude), column(position.longitude));
+    Map<String, LatLng> markers = cells.get(cell);
+    if (markers == null) {
+      markers = new HashMap<>();
+      cells.put(cell, markers);
+    }
+    markers.put(markerId, position);
+    markerIdToCell.put(markerId, cell);
+  }
+
+  void remove(String markerId) {
+    if (unpositioned.remove(markerId)) {
+      return;
+    }
+    final Integer cell = markerIdToCell.remove(markerId);
+    if (cell == null) {
+      return;
+    }
+    final Map<String, LatLng> markers = cells.get(cell);
+    markers.remove(markerId);
+    if (markers.isEmpty()) {
+      cells.remove(cell);
+    }
+  }
+
+  void clear() {
+    cells.clear();
+    markerIdToCell.clear();
+    unpositioned.clear();
+  }
+
+  /** Returns the markers inside the region. */
+  List<String> query(Region region) {
+    final List<String> result = new ArrayList<>(unpositioned);
+    final int firstRow = row(region.south);
+    final int lastRow = row(region.north);
+    final int firstColumn = column(region.west);
+    final int lastColumn = column(region.east);
+    final int columnCount =
+        region.west <= region.east
+            ? lastColumn - firstColumn + 1
+            : Math.min(COLUMNS, COLUMNS - firstColumn + lastColumn + 1);
+    final long cellCount = (long) columnCount * (lastRow - firstRow + 1);
+    if (cellCount >= cells.size()) {
+      for (Map<String, LatLng> markers : cells.values()) {
+        collect(markers, region, result);
+      }
+      return result;
+    }
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int i = 0; i < columnCount; i++) {
+        final Map<String, LatLng> markers = cells.get(cell(row, (firstColumn + i) % COLUMNS));
+        if (markers != null) {
+          collect(markers, region, result);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static void collect(Map<String, LatLng> markers, Region region, List<String> result) {
+    for (Map.Entry<String, LatLng> entry : markers.entrySet()) {
+      if (region.contains(entry.getValue())) {
+        result.add(entry.getKey());
+      }
+    }
+  }
+
+  private static int row(double latitude) {
+    return Math.max(0, Math.min(ROWS - 1, (int) Math.floor((latitude + 90) / CELL_DEGREES)));
+  }
+
+  private static int column(double longitude) {
+    return Math.max(0, Math.min(COLUMNS - 1, (int) Math.floor((longitude + 180) / CELL_DEGREES)));
+  }
+
+  private static int cell(int row, int column) {
+    return row * COLUMNS + column;
+  }
+}
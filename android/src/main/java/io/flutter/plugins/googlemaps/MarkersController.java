@@ -4,30 +4,284 @@
 
 package io.flutter.plugins.googlemaps;
 
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
 import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
 import io.flutter.plugin.common.MethodChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-class MarkersController {
+class MarkersController implements MarkerClusterer.Callback, IconDecoder.Callback {
+  private static final int CLUSTER_COLOR = 0xE0127ABF;
+  private static final float CLUSTER_ICON_SIZE_DP = 40;
+  private static final float CLUSTER_TEXT_SIZE_DP = 14;
+  // Cluster sizes from which the icon shows a rounded "N+" label instead of the exact count.
+  private static final int[] CLUSTER_LABEL_STEPS = {10, 20, 50, 100, 200, 500, 1000};
+  // Fraction of the visible span kept on each side of the viewport while culling.
+  private static final double CULLING_MARGIN = 0.25;
 
-  private final Map<String, MarkerController> markerIdToController;
-  private final Map<String, String> googleMapsMarkerIdToDartMarkerId;
+  // The options of every marker, including those hidden in a cluster.
+  private final Map<String, Object> markerIdToOptions;
+  // The options Dart last sent for markers that were moved without Dart's options since. Changes
+  // from Dart are found by comparing against these.
+  private final Map<String, Object> movedMarkerIdToDartOptions = new HashMap<>();
+  // Only the markers that are currently on the map. Each map marker is tagged with its handle.
+  private final HandleTable<MarkerController> shownMarkers = new HandleTable<>();
   private final MethodChannel methodChannel;
+  private final float density;
+  private final MarkerClusterer clusterer = new MarkerClusterer();
+  private final Map<String, Marker> clusterKeyToMarker = new HashMap<>();
+  private final Map<String, BitmapDescriptor> clusterIcons = new HashMap<>();
+  // Positions of all markers. Only maintained while culling.
+  private final MarkerSpatialIndex spatialIndex = new MarkerSpatialIndex();
+  private final IconDecoder iconDecoder = new IconDecoder();
+  private final MarkerAnimator animator = new MarkerAnimator();
+  // The marker ids that markers#streamPositions refers to by index. Dart and this controller both
+  // start the table over when markers#update removes markers.
+  private final List<String> streamedMarkerIds = new ArrayList<>();
+  // Markers kept invisible until their first icon is decoded.
+  private final Set<String> markerIdsAwaitingIcon = new HashSet<>();
+  // The icons of markers using a registered icon, resolved when Dart sent them, so that markers
+  // can be shown again after the icon's handle was unregistered.
+  private final Map<String, BitmapDescriptor> markerIdToRegisteredIcon = new HashMap<>();
   private GoogleMap googleMap;
+  private boolean clusteringEnabled;
+  // Markers the most recent clustering left on their own, or null before it completes.
+  private Set<String> unclusteredMarkerIds;
+  private boolean cullingEnabled;
+  // The viewport plus margin, or null before the map has been laid out.
+  private MarkerSpatialIndex.Region cullingRegion;
+  private boolean asyncIconDecodingEnabled;
+  private float zoom;
 
-  MarkersController(MethodChannel methodChannel) {
-    this.markerIdToController = new HashMap<>();
-    this.googleMapsMarkerIdToDartMarkerId = new HashMap<>();
+  MarkersController(MethodChannel methodChannel, float density) {
+    this.markerIdToOptions = new HashMap<>();
     this.methodChannel = methodChannel;
+    this.density = density;
   }
 
   void setGoogleMap(GoogleMap googleMap) {
     this.googleMap = googleMap;
+    this.zoom = googleMap.getCameraPosition().zoom;
+    updateCullingRegion();
+    recluster();
+  }
+
+  /**
+   * Enables or disables clustering.
+   *
+   * <p>While enabled, markers that are close together on screen are replaced by a single cluster
+   * marker. Clusters are recomputed off the main thread whenever the camera settles or markers are
+   * updated, and tapping one emits {@code cluster#onTap}.
+   */
+  void setClusteringEnabled(boolean clusteringEnabled) {
+    if (this.clusteringEnabled == clusteringEnabled) {
+      return;
+    }
+    this.clusteringEnabled = clusteringEnabled;
+    if (clusteringEnabled) {
+      recluster();
+      return;
+    }
+    clusterer.cancel();
+    unclusteredMarkerIds = null;
+    removeClusterMarkers(clusterKeyToMarker.keySet());
+    updateShownMarkers();
+  }
+
+  /**
+   * Enables or disables viewport culling.
+   *
+   * <p>While enabled, only markers inside the visible region plus a margin are added to the map.
+   * The others are kept as options in a spatial index and swapped in and out whenever the camera
+   * settles.
+   */
+  void setCullingEnabled(boolean cullingEnabled) {
+    if (this.cullingEnabled == cullingEnabled) {
+      return;
+    }
+    this.cullingEnabled = cullingEnabled;
+    if (cullingEnabled) {
+      for (Map.Entry<String, Object> entry : markerIdToOptions.entrySet()) {
+        spatialIndex.put(entry.getKey(), getMarkerPosition(entry.getValue()));
+      }
+      updateCullingRegion();
+    } else {
+      spatialIndex.clear();
+    }
+    updateShownMarkers();
+  }
+
+  /**
+   * Enables or disables decoding large {@code fromBytes} icons in the background.
+   *
+   * <p>While enabled, new markers with such an icon are added invisible and shown once it is
+   * decoded, while changed markers keep their previous icon until then. Only applies to markers
+   * added or changed afterwards.
+   */
+  void setAsyncIconDecodingEnabled(boolean asyncIconDecodingEnabled) {
+    this.asyncIconDecodingEnabled = asyncIconDecodingEnabled;
+  }
+
+  void onCameraIdle(float zoom) {
+    this.zoom = zoom;
+    if (cullingEnabled) {
+      updateCullingRegion();
+      updateShownMarkers();
+    }
+    recluster();
+  }
+
+  void dispose() {
+    clusterer.dispose();
+    iconDecoder.dispose();
+    animator.cancelAll();
+  }
+
+  /**
+   * Applies a whole {@code markers#update} batch in one pass and returns statistics about it.
+   *
+   * <p>Removals are applied first so that the map never holds more markers than needed. Changed
+   * markers only have the properties that differ from their current options applied.
+   */
+  Map<String, Object> updateMarkers(
+      List<Object> markersToAdd, List<Object> markersToChange, List<Object> markerIdsToRemove) {
+    final long startNanos = System.nanoTime();
+    final int initialCount = markerIdToOptions.size();
+    if (markerIdsToRemove != null && !markerIdsToRemove.isEmpty()) {
+      streamedMarkerIds.clear();
+    }
+    removeMarkers(markerIdsToRemove);
+    final int removed = initialCount - markerIdToOptions.size();
+    int changed = 0;
+    int unchanged = 0;
+    if (markersToChange != null) {
+      for (Object markerToChange : markersToChange) {
+        if (changeMarker(markerToChange)) {
+          changed++;
+        } else {
+          unchanged++;
+        }
+      }
+    }
+    final int countBeforeAdd = markerIdToOptions.size();
+    if (markersToAdd != null) {
+      for (Object markerToAdd : markersToAdd) {
+        addMarker(markerToAdd);
+      }
+    }
+    final Map<String, Object> stats = new HashMap<>();
+    stats.put("added", markerIdToOptions.size() - countBeforeAdd);
+    stats.put("changed", changed);
+    stats.put("unchanged", unchanged);
+    stats.put("removed", removed);
+    stats.put("durationMicros", (System.nanoTime() - startNanos) / 1000);
+    if (removed > 0 || changed > 0 || markerIdToOptions.size() > countBeforeAdd) {
+      recluster();
+    }
+    return stats;
+  }
+
+  /** Moves markers without the rest of their options being sent again. */
+  @SuppressWarnings("unchecked")
+  void setMarkerPositions(List<String> markerIds, List<LatLng> positions) {
+    boolean changed = false;
+    for (int i = 0; i < markerIds.size(); i++) {
+      final String markerId = markerIds.get(i);
+      final Object previousOptions = markerIdToOptions.get(markerId);
+      if (previousOptions == null) {
+        continue;
+      }
+      // Options are never modified once stored, see recluster.
+      final Map<String, Object> options = new HashMap<>((Map<String, Object>) previousOptions);
+      options.put("position", Convert.latLngToJson(positions.get(i)));
+      keepDartOptions(markerId, previousOptions);
+      changed |= applyMarkerOptions(markerId, previousOptions, options);
+    }
+    if (changed) {
+      recluster();
+    }
+  }
+
+  /** Throws if a tuple refers to a marker index that {@link #streamPositions} would not know. */
+  void checkStreamedPositions(List<String> newMarkerIds, double[] tuples) {
+    final int indexLimit =
+        streamedMarkerIds.size() + (newMarkerIds == null ? 0 : newMarkerIds.size());
+    for (int i = 0; i + 3 < tuples.length; i += 4) {
+      final int index = (int) tuples[i];
+      if (index < 0 || index >= indexLimit) {
+        throw new IllegalArgumentException("Unknown streamed marker index " + index);
+      }
+    }
+  }
+
+  /**
+   * Moves markers to streamed positions, gliding those on the map there over {@code
+   * durationMillis}.
+   *
+   * <p>{@code newMarkerIds} extends the table of marker ids that the tuples refer to by index.
+   * Each tuple is four doubles: the marker index, latitude, longitude and rotation, where a NaN
+   * rotation keeps the current one. The tuples must have passed {@link #checkStreamedPositions}.
+   */
+  @SuppressWarnings("unchecked")
+  void streamPositions(List<String> newMarkerIds, double[] tuples, long durationMillis) {
+    if (newMarkerIds != null) {
+      streamedMarkerIds.addAll(newMarkerIds);
+    }
+    boolean moved = false;
+    for (int i = 0; i + 3 < tuples.length; i += 4) {
+      final String markerId = streamedMarkerIds.get((int) tuples[i]);
+      final Object previousOptions = markerIdToOptions.get(markerId);
+      if (previousOptions == null) {
+        // Removed since it was streamed first.
+        continue;
+      }
+      // Options are never modified once stored, see recluster.
+      final Map<String, Object> options = new HashMap<>((Map<String, Object>) previousOptions);
+      final LatLng position = new LatLng(tuples[i + 1], tuples[i + 2]);
+      options.put("position", Convert.latLngToJson(position));
+      if (!Double.isNaN(tuples[i + 3])) {
+        options.put("rotation", tuples[i + 3]);
+      }
+      keepDartOptions(markerId, previousOptions);
+      markerIdToOptions.put(markerId, options);
+      if (cullingEnabled) {
+        spatialIndex.put(markerId, position);
+      }
+      final MarkerController markerController = shownMarkers.get(markerId);
+      final boolean show = shouldShow(markerId, position);
+      if (markerController != null && show) {
+        animator.animate(
+            markerId, markerController, position, getMarkerRotation(options), durationMillis);
+      } else if (markerController != null) {
+        hideMarker(markerId);
+      } else if (show) {
+        showMarker(options);
+      }
+      moved = true;
+    }
+    if (moved) {
+      recluster();
+    }
+  }
+
+  /** The number of markers known to this controller, shown or not. */
+  int size() {
+    return markerIdToOptions.size();
   }
 
   void addMarkers(List<Object> markersToAdd) {
@@ -35,6 +289,7 @@ class MarkersController {
       for (Object markerToAdd : markersToAdd) {
         addMarker(markerToAdd);
       }
+      recluster();
     }
   }
 
@@ -55,52 +310,284 @@ class MarkersController {
         continue;
       }
       String markerId = (String) rawMarkerId;
-      final MarkerController markerController = markerIdToController.remove(markerId);
-      if (markerController != null) {
-        markerController.remove();
-        googleMapsMarkerIdToDartMarkerId.remove(markerController.getGoogleMapsMarkerId());
+      markerIdToOptions.remove(markerId);
+      movedMarkerIdToDartOptions.remove(markerId);
+      markerIdToRegisteredIcon.remove(markerId);
+      if (cullingEnabled) {
+        spatialIndex.remove(markerId);
       }
+      hideMarker(markerId);
     }
   }
 
-  boolean onMarkerTap(String googleMarkerId) {
-    String markerId = googleMapsMarkerIdToDartMarkerId.get(googleMarkerId);
-    if (markerId == null) {
+  boolean onMarkerTap(Marker googleMarker) {
+    if (googleMarker.getTag() instanceof MarkerClusterer.Cluster) {
+      final MarkerClusterer.Cluster cluster = (MarkerClusterer.Cluster) googleMarker.getTag();
+      final Map<String, Object> data = new HashMap<>();
+      data.put("position", Convert.latLngToJson(cluster.position));
+      data.put("markerIds", cluster.markerIds);
+      methodChannel.invokeMethod("cluster#onTap", data);
       return false;
     }
-    methodChannel.invokeMethod("marker#onTap", Convert.markerIdToJson(markerId));
-    MarkerController markerController = markerIdToController.get(markerId);
-    if (markerController != null) {
-      return markerController.consumeTapEvents();
+    final int handle = getHandle(googleMarker);
+    final MarkerController markerController = shownMarkers.get(handle);
+    if (markerController == null) {
+      return false;
     }
-    return false;
+    methodChannel.invokeMethod("marker#onTap", Convert.markerIdToJson(shownMarkers.idOf(handle)));
+    return markerController.consumeTapEvents();
   }
 
-  void onMarkerDragEnd(String googleMarkerId, LatLng latLng) {
-    String markerId = googleMapsMarkerIdToDartMarkerId.get(googleMarkerId);
+  void onMarkerDragEnd(Marker googleMarker) {
+    final String markerId = shownMarkers.idOf(getHandle(googleMarker));
     if (markerId == null) {
       return;
     }
     final Map<String, Object> data = new HashMap<>();
     data.put("markerId", markerId);
-    data.put("position", Convert.latLngToJson(latLng));
+    data.put("position", Convert.latLngToJson(googleMarker.getPosition()));
     methodChannel.invokeMethod("marker#onDragEnd", data);
   }
 
-  void onInfoWindowTap(String googleMarkerId) {
-    String markerId = googleMapsMarkerIdToDartMarkerId.get(googleMarkerId);
+  void onInfoWindowTap(Marker googleMarker) {
+    final String markerId = shownMarkers.idOf(getHandle(googleMarker));
     if (markerId == null) {
       return;
     }
     methodChannel.invokeMethod("infoWindow#onTap", Convert.markerIdToJson(markerId));
   }
 
+  /** Returns the handle a marker of ours is tagged with, or -1 for other markers. */
+  private static int getHandle(Marker googleMarker) {
+    final Object tag = googleMarker.getTag();
+    return tag instanceof Integer ? (Integer) tag : -1;
+  }
+
+  @Override
+  public void onClustered(MarkerClusterer.Result result) {
+    if (!clusteringEnabled || googleMap == null) {
+      return;
+    }
+    unclusteredMarkerIds = new HashSet<>(result.unclusteredMarkerIds);
+    updateShownMarkers();
+    final Set<String> staleClusterKeys = new HashSet<>(clusterKeyToMarker.keySet());
+    for (MarkerClusterer.Cluster cluster : result.clusters) {
+      staleClusterKeys.remove(cluster.key);
+      Marker marker = clusterKeyToMarker.get(cluster.key);
+      if (marker == null) {
+        marker =
+            googleMap.addMarker(
+                new MarkerOptions()
+                    .position(cluster.position)
+                    .anchor(0.5f, 0.5f)
+                    .icon(clusterIcon(cluster.markerIds.size())));
+        clusterKeyToMarker.put(cluster.key, marker);
+      } else {
+        final MarkerClusterer.Cluster previous = (MarkerClusterer.Cluster) marker.getTag();
+        if (!previous.position.equals(cluster.position)) {
+          marker.setPosition(cluster.position);
+        }
+        if (previous.markerIds.size() != cluster.markerIds.size()) {
+          marker.setIcon(clusterIcon(cluster.markerIds.size()));
+        }
+      }
+      marker.setTag(cluster);
+    }
+    removeClusterMarkers(staleClusterKeys);
+  }
+
+  @Override
+  public void onIconDecoded(String markerId, BitmapDescriptor descriptor) {
+    final MarkerController markerController = shownMarkers.get(markerId);
+    if (markerController == null) {
+      return;
+    }
+    markerController.setIcon(descriptor);
+    if (markerIdsAwaitingIcon.remove(markerId)) {
+      markerController.setVisible(isVisible(markerIdToOptions.get(markerId)));
+    }
+  }
+
+  /** Shows a marker that waited for its icon with the default one, as Dart's icon is invalid. */
+  @Override
+  public void onIconDecodeFailed(String markerId) {
+    // Only shown markers wait for an icon, see hideMarker.
+    if (markerIdsAwaitingIcon.remove(markerId)) {
+      shownMarkers.get(markerId).setVisible(isVisible(markerIdToOptions.get(markerId)));
+    }
+  }
+
+  /** Adds and removes map markers so that exactly those that should be visible are on the map. */
+  private void updateShownMarkers() {
+    if (googleMap == null) {
+      return;
+    }
+    final Collection<String> candidates;
+    if (!cullingEnabled) {
+      candidates = markerIdToOptions.keySet();
+    } else if (cullingRegion != null) {
+      candidates = spatialIndex.query(cullingRegion);
+    } else {
+      candidates = Collections.emptyList();
+    }
+    final Set<String> shown = new HashSet<>();
+    for (String markerId : candidates) {
+      if (isUnclustered(markerId)) {
+        shown.add(markerId);
+      }
+    }
+    for (int handle = 0; handle < shownMarkers.handleLimit(); handle++) {
+      final String markerId = shownMarkers.idOf(handle);
+      if (markerId != null && !shown.contains(markerId)) {
+        hideMarker(markerId);
+      }
+    }
+    for (String markerId : shown) {
+      if (!shownMarkers.contains(markerId)) {
+        showMarker(markerIdToOptions.get(markerId));
+      }
+    }
+  }
+
+  private boolean shouldShow(String markerId, LatLng position) {
+    if (!isUnclustered(markerId)) {
+      return false;
+    }
+    return !cullingEnabled || (cullingRegion != null && cullingRegion.contains(position));
+  }
+
+  private boolean isUnclustered(String markerId) {
+    if (!clusteringEnabled) {
+      return true;
+    }
+    // Markers added since the last clustering wait for the next one.
+    return unclusteredMarkerIds != null && unclusteredMarkerIds.contains(markerId);
+  }
+
+  private void updateCullingRegion() {
+    if (!cullingEnabled || googleMap == null) {
+      return;
+    }
+    final LatLngBounds bounds = googleMap.getProjection().getVisibleRegion().latLngBounds;
+    final double latitudeMargin =
+        (bounds.northeast.latitude - bounds.southwest.latitude) * CULLING_MARGIN;
+    double longitudeSpan = bounds.northeast.longitude - bounds.southwest.longitude;
+    if (longitudeSpan < 0) {
+      // The viewport crosses the antimeridian.
+      longitudeSpan += 360;
+    }
+    final double longitudeMargin = longitudeSpan * CULLING_MARGIN;
+    final double south = Math.max(-90, bounds.southwest.latitude - latitudeMargin);
+    final double north = Math.min(90, bounds.northeast.latitude + latitudeMargin);
+    if (longitudeSpan + 2 * longitudeMargin >= 360) {
+      cullingRegion = new MarkerSpatialIndex.Region(south, -180, north, 180);
+    } else {
+      cullingRegion =
+          new MarkerSpatialIndex.Region(
+              south,
+              wrapLongitude(bounds.southwest.longitude - longitudeMargin),
+              north,
+              wrapLongitude(bounds.northeast.longitude + longitudeMargin));
+    }
+  }
+
+  private static double wrapLongitude(double longitude) {
+    if (longitude < -180) {
+      return longitude + 360;
+    } else if (longitude > 180) {
+      return longitude - 360;
+    }
+    return longitude;
+  }
+
+  private void recluster() {
+    if (!clusteringEnabled || googleMap == null) {
+      return;
+    }
+    // The options maps are never modified once received, so a shallow copy is safe to read.
+    clusterer.cluster(new ArrayList<>(markerIdToOptions.values()), zoom, this);
+  }
+
+  private void removeClusterMarkers(Set<String> clusterKeys) {
+    for (String clusterKey : new ArrayList<>(clusterKeys)) {
+      final Marker marker = clusterKeyToMarker.remove(clusterKey);
+      marker.remove();
+    }
+  }
+
+  private BitmapDescriptor clusterIcon(int count) {
+    String label = String.valueOf(count);
+    for (int step : CLUSTER_LABEL_STEPS) {
+      if (count >= step) {
+        label = step + "+";
+      }
+    }
+    BitmapDescriptor icon = clusterIcons.get(label);
+    if (icon == null) {
+      final int size = Math.round(CLUSTER_ICON_SIZE_DP * density);
+      final Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+      final Canvas canvas = new Canvas(bitmap);
+      final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+      paint.setColor(CLUSTER_COLOR);
+      canvas.drawCircle(size / 2f, size / 2f, size / 2f, paint);
+      paint.setColor(Color.WHITE);
+      paint.setTextSize(CLUSTER_TEXT_SIZE_DP * density);
+      paint.setTextAlign(Paint.Align.CENTER);
+      paint.setFakeBoldText(true);
+      canvas.drawText(label, size / 2f, size / 2f - (paint.descent() + paint.ascent()) / 2, paint);
+      icon = BitmapDescriptorFactory.fromBitmap(bitmap);
+      clusterIcons.put(label, icon);
+    }
+    return icon;
+  }
+
   private void addMarker(Object marker) {
     if (marker == null) {
       return;
     }
+    final String markerId = getMarkerId(marker);
+    if (markerId == null) {
+      throw new IllegalArgumentException("markerId was null");
+    }
+    // Before storing the options, which must not refer to an unregistered icon.
+    updateRegisteredIcon(markerId, marker);
+    markerIdToOptions.put(markerId, marker);
+    final LatLng position = getMarkerPosition(marker);
+    if (cullingEnabled) {
+      spatialIndex.put(markerId, position);
+    }
+    if (shouldShow(markerId, position)) {
+      showMarker(marker);
+    }
+  }
+
+  /** Adds a marker that is known to this controller to the map. */
+  @SuppressWarnings("unchecked")
+  private void showMarker(Object marker) {
     MarkerBuilder markerBuilder = new MarkerBuilder();
-    String markerId = Convert.interpretMarkerOptions(marker, markerBuilder);
+    final Object icon = ((Map<?, ?>) marker).get("icon");
+    final BitmapDescriptor registeredIcon = markerIdToRegisteredIcon.get(getMarkerId(marker));
+    final String markerId;
+    if (registeredIcon != null) {
+      final Map<String, Object> optionsWithoutIcon = new HashMap<>((Map<String, Object>) marker);
+      optionsWithoutIcon.remove("icon");
+      markerId = Convert.interpretMarkerOptions(optionsWithoutIcon, markerBuilder);
+      markerBuilder.setIcon(registeredIcon);
+    } else if (asyncIconDecodingEnabled && IconDecoder.shouldDecodeAsync(icon)) {
+      final Map<String, Object> optionsWithoutIcon = new HashMap<>((Map<String, Object>) marker);
+      optionsWithoutIcon.remove("icon");
+      markerId = Convert.interpretMarkerOptions(optionsWithoutIcon, markerBuilder);
+      final BitmapDescriptor decodedIcon = iconDecoder.decode(markerId, (List<?>) icon, this);
+      if (decodedIcon != null) {
+        markerBuilder.setIcon(decodedIcon);
+      } else {
+        // Better than flashing the default marker until the icon is ready.
+        markerBuilder.setVisible(false);
+        markerIdsAwaitingIcon.add(markerId);
+      }
+    } else {
+      markerId = Convert.interpretMarkerOptions(marker, markerBuilder);
+    }
     MarkerOptions options = markerBuilder.build();
     addMarker(markerId, options, markerBuilder.consumeTapEvents());
   }
@@ -108,19 +595,144 @@ class MarkersController {
   private void addMarker(String markerId, MarkerOptions markerOptions, boolean consumeTapEvents) {
     final Marker marker = googleMap.addMarker(markerOptions);
     MarkerController controller = new MarkerController(marker, consumeTapEvents);
-    markerIdToController.put(markerId, controller);
-    googleMapsMarkerIdToDartMarkerId.put(marker.getId(), markerId);
+    marker.setTag(shownMarkers.put(markerId, controller));
   }
 
-  private void changeMarker(Object marker) {
+  /** Removes a marker from the map, keeping its options. */
+  private void hideMarker(String markerId) {
+    iconDecoder.cancel(markerId);
+    animator.cancel(markerId);
+    markerIdsAwaitingIcon.remove(markerId);
+    final MarkerController markerController = shownMarkers.remove(markerId);
+    if (markerController != null) {
+      markerController.remove();
+    }
+  }
+
+  /**
+   * Applies options sent by Dart and returns whether any property of the marker actually changed.
+   *
+   * <p>Dart sends all options of a marker when any of them changes, including the position it
+   * last set. A marker moved since by {@link #setMarkerPositions} or {@link #streamPositions}
+   * keeps its position, and rotation, unless Dart's own value for it changed.
+   */
+  @SuppressWarnings("unchecked")
+  private boolean changeMarker(Object marker) {
     if (marker == null) {
-      return;
+      return false;
     }
     String markerId = getMarkerId(marker);
-    MarkerController markerController = markerIdToController.get(markerId);
-    if (markerController != null) {
-      Convert.interpretMarkerOptions(marker, markerController);
+    final Object previousOptions = markerIdToOptions.get(markerId);
+    if (previousOptions == null) {
+      return false;
+    }
+    final Object dartOptions = movedMarkerIdToDartOptions.get(markerId);
+    if (dartOptions == null) {
+      return applyMarkerOptions(markerId, previousOptions, marker);
+    }
+    final Map<String, Object> dartChanges =
+        Convert.changedOptions(dartOptions, marker, "markerId");
+    if (dartChanges.containsKey("position")) {
+      // Dart moved the marker itself.
+      movedMarkerIdToDartOptions.remove(markerId);
+      return applyMarkerOptions(markerId, previousOptions, marker);
+    }
+    movedMarkerIdToDartOptions.put(markerId, marker);
+    final Map<String, Object> options = new HashMap<>((Map<String, Object>) marker);
+    options.put("position", ((Map<?, ?>) previousOptions).get("position"));
+    if (!dartChanges.containsKey("rotation")) {
+      options.put("rotation", ((Map<?, ?>) previousOptions).get("rotation"));
+    }
+    return applyMarkerOptions(markerId, previousOptions, options);
+  }
+
+  /** Remembers what Dart last sent for a marker that is about to be moved without Dart. */
+  private void keepDartOptions(String markerId, Object previousOptions) {
+    if (!movedMarkerIdToDartOptions.containsKey(markerId)) {
+      movedMarkerIdToDartOptions.put(markerId, previousOptions);
+    }
+  }
+
+  /** Replaces the options of a marker and returns whether any property actually changed. */
+  private boolean applyMarkerOptions(String markerId, Object previousOptions, Object marker) {
+    final Map<String, Object> changedOptions =
+        Convert.changedOptions(previousOptions, marker, "markerId");
+    if (changedOptions.containsKey("icon")) {
+      updateRegisteredIcon(markerId, marker);
+    }
+    markerIdToOptions.put(markerId, marker);
+    if (changedOptions.size() <= 1) {
+      // Only the marker id is left.
+      return false;
     }
+    final LatLng position = getMarkerPosition(marker);
+    if (cullingEnabled && changedOptions.containsKey("position")) {
+      spatialIndex.put(markerId, position);
+    }
+    MarkerController markerController = shownMarkers.get(markerId);
+    final boolean show = shouldShow(markerId, position);
+    if (markerController != null && show) {
+      if (changedOptions.containsKey("position") || changedOptions.containsKey("rotation")) {
+        animator.cancel(markerId);
+      }
+      if (changedOptions.containsKey("icon")) {
+        changeIcon(markerId, changedOptions, markerController);
+      }
+      if (markerIdsAwaitingIcon.contains(markerId)) {
+        // Applied once the icon is decoded.
+        changedOptions.remove("visible");
+      }
+      Convert.interpretMarkerOptions(changedOptions, markerController);
+    } else if (markerController != null) {
+      hideMarker(markerId);
+    } else if (show) {
+      showMarker(marker);
+    }
+    return true;
+  }
+
+  /** Takes a large icon out of the changed options to decode it, or drops its pending decode. */
+  private void changeIcon(
+      String markerId, Map<String, Object> changedOptions, MarkerController markerController) {
+    final Object icon = changedOptions.get("icon");
+    if (!asyncIconDecodingEnabled || !IconDecoder.shouldDecodeAsync(icon)) {
+      iconDecoder.cancel(markerId);
+      if (markerIdsAwaitingIcon.remove(markerId)) {
+        changedOptions.put("visible", isVisible(markerIdToOptions.get(markerId)));
+      }
+      return;
+    }
+    changedOptions.remove("icon");
+    final BitmapDescriptor decodedIcon = iconDecoder.decode(markerId, (List<?>) icon, this);
+    if (decodedIcon != null) {
+      onIconDecoded(markerId, decodedIcon);
+    }
+  }
+
+  /** Keeps the marker's registered icon, if it uses one, for as long as the marker exists. */
+  private void updateRegisteredIcon(String markerId, Object marker) {
+    final Object icon = ((Map<?, ?>) marker).get("icon");
+    final BitmapDescriptor registeredIcon = icon == null ? null : Convert.toRegisteredIcon(icon);
+    if (registeredIcon != null) {
+      markerIdToRegisteredIcon.put(markerId, registeredIcon);
+    } else {
+      markerIdToRegisteredIcon.remove(markerId);
+    }
+  }
+
+  private static boolean isVisible(Object marker) {
+    final Object visible = ((Map<?, ?>) marker).get("visible");
+    return visible == null || (Boolean) visible;
+  }
+
+  private static float getMarkerRotation(Object marker) {
+    final Object rotation = ((Map<?, ?>) marker).get("rotation");
+    return rotation == null ? 0 : ((Number) rotation).floatValue();
+  }
+
+  private static LatLng getMarkerPosition(Object marker) {
+    final Object position = ((Map<?, ?>) marker).get("position");
+    return position == null ? null : Convert.toLatLng(position);
   }
 
   @SuppressWarnings("unchecked")
@@ -0,0 +1,389 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+import android.util.LruCache;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Two-level cache of pollution overlay images.
+ *
+ * <p>Decoded bitmaps are kept in a byte-bounded in-memory LRU, and the compressed server responses
+ * in a size-bounded LRU directory under the app cache dir. Entries of both levels expire after a
+ * fixed time to live. The cache is shared by all maps in the process and is safe to use from any
+ * thread; disk access should happen off the main thread.
+ *
+ * <p>Bitmaps leaving the memory cache are recycled into a {@link BitmapPool} for later decodes,
+ * unless they are still in use; see {@link #acquireBitmap}.
+ */
+class OverlayCache {
+  private static final String TAG = "OverlayCache";
+  private static final String DIRECTORY_NAME = "google_maps_overlay_cache";
+  private static final long TTL_MILLIS = 15 * 60 * 1000;
+  private static final long MAX_DISK_BYTES = 20 * 1024 * 1024;
+  private static final int MAX_MEMORY_BYTES = 16 * 1024 * 1024;
+  // Viewports are snapped outward to a grid of this fraction of their span.
+  private static final int GRID_CELLS_PER_SPAN = 4;
+  private static final double MAX_LONGITUDE = 179.999999;
+
+  private static OverlayCache instance;
+
+  private static final class MemoryEntry {
+    final Bitmap bitmap;
+    final long storedAt;
+
+    MemoryEntry(Bitmap bitmap, long storedAt) {
+      this.bitmap = bitmap;
+      this.storedAt = storedAt;
+    }
+  }
+
+  private final LruCache<String, MemoryEntry> memoryCache;
+  private final BitmapPool bitmapPool;
+  // Number of outstanding acquisitions of each bitmap, by identity. Guarded by itself.
+  private final Map<Bitmap, Integer> inUse = new IdentityHashMap<>();
+  private final File directory;
+  // Disk entries in access order, least recently used first. Guarded by this.
+  private final LinkedHashMap<String, Long> diskIndex = new LinkedHashMap<>(16, 0.75f, true);
+  private long diskBytes;
+  private boolean diskIndexLoaded;
+
+  static synchronized OverlayCache getInstance(Context context) {
+    if (instance == null) {
+      int maxMemoryBytes = (int) Math.min(MAX_MEMORY_BYTES, Runtime.getRuntime().maxMemory() / 16);
+      instance =
+          new OverlayCache(
+              new File(context.getApplicationContext().getCacheDir(), DIRECTORY_NAME),
+              maxMemoryBytes);
+    }
+    return instance;
+  }
+
+  private OverlayCache(File directory, int maxMemoryBytes) {
+    this.directory = directory;
+    this.bitmapPool = new BitmapPool(maxMemoryBytes / 2);
+    this.memoryCache =
+        new LruCache<String, MemoryEntry>(maxMemoryBytes) {
+          @Override
+          protected int sizeOf(String key, MemoryEntry entry) {
+            return BitmapPool.sizeOf(entry.bitmap);
+          }
+
+          @Override
+          protected void entryRemoved(
+              boolean evicted, String key, MemoryEntry oldEntry, MemoryEntry newEntry) {
+            if (newEntry == null || newEntry.bitmap != oldEntry.bitmap) {
+              releaseIfUnused(oldEntry.bitmap);
+            }
+          }
+        };
+  }
+
+  BitmapPool getBitmapPool() {
+    return bitmapPool;
+  }
+
+  /**
+   * Returns the cached bitmap for the key, or null if absent or expired, and marks it as in use so
+   * that it is not pooled. Every acquired bitmap must eventually be passed to {@link
+   * #releaseBitmap}.
+   */
+  Bitmap acquireBitmap(String key) {
+    synchronized (inUse) {
+      final Bitmap bitmap = getBitmap(key);
+      if (bitmap != null) {
+        retain(bitmap);
+      }
+      return bitmap;
+    }
+  }
+
+  /** Caches the bitmap and marks it as in use, like {@link #acquireBitmap}. */
+  void putAndAcquireBitmap(String key, Bitmap bitmap) {
+    synchronized (inUse) {
+      retain(bitmap);
+    }
+    putBitmap(key, bitmap);
+  }
+
+  /**
+   * Gives up a bitmap obtained from {@link #acquireBitmap} or {@link #putAndAcquireBitmap}. It is
+   * returned to the pool once nothing uses it and it is no longer cached.
+   */
+  void releaseBitmap(Bitmap bitmap) {
+    if (bitmap == null) {
+      return;
+    }
+    synchronized (inUse) {
+      final Integer count = inUse.get(bitmap);
+      if (count != null && count > 1) {
+        inUse.put(bitmap, count - 1);
+        return;
+      }
+      inUse.remove(bitmap);
+    }
+    if (!isCached(bitmap)) {
+      releaseIfUnused(bitmap);
+    }
+  }
+
+  private void retain(Bitmap bitmap) {
+    final Integer count = inUse.get(bitmap);
+    inUse.put(bitmap, count == null ? 1 : count + 1);
+  }
+
+  private boolean isCached(Bitmap bitmap) {
+    for (MemoryEntry entry : memoryCache.snapshot().values()) {
+      if (entry.bitmap == bitmap) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void releaseIfUnused(Bitmap bitmap) {
+    synchronized (inUse) {
+      if (inUse.containsKey(bitmap)) {
+        return;
+      }
+    }
+    bitmapPool.put(bitmap);
+  }
+
+  /**
+   * Snaps bounds outward to a grid proportional to their span, so that nearby viewports at the
+   * same zoom share a cache entry.
+   */
+  static LatLngBounds quantize(LatLngBounds bounds) {
+    final double latitudeStep = gridStep(bounds.northeast.latitude - bounds.southwest.latitude);
+    double longitudeSpan = bounds.northeast.longitude - bounds.southwest.longitude;
+    if (longitudeSpan <= 0) {
+      // The viewport crosses the antimeridian.
+      longitudeSpan += 360;
+    }
+    final double longitudeStep = gridStep(longitudeSpan);
+    final double south =
+        Math.max(-90, Math.floor(bounds.southwest.latitude / latitudeStep) * latitudeStep);
+    final double north =
+        Math.min(90, Math.ceil(bounds.northeast.latitude / latitudeStep) * latitudeStep);
+    // LatLng wraps a longitude of 180 to -180, so stay just inside it.
+    final double west =
+        Math.max(-180, Math.floor(bounds.southwest.longitude / longitudeStep) * longitudeStep);
+    final double east =
+        Math.min(
+            MAX_LONGITUDE, Math.ceil(bounds.northeast.longitude / longitudeStep) * longitudeStep);
+    return new LatLngBounds(new LatLng(south, west), new LatLng(north, east));
+  }
+
+  private static double gridStep(double span) {
+    if (span <= 0) {
+      return 1e-6;
+    }
+    // Round down to a power of two so that the grid is stable while zooming within a level.
+    return Math.pow(2, Math.floor(Math.log(span / GRID_CELLS_PER_SPAN) / Math.log(2)));
+  }
+
+  static String key(
+      LatLngBounds quantizedBounds, String resolution, String pollutionType, String deviceId) {
+    return quantizedBounds.northeast.latitude
+        + ","
+        + quantizedBounds.southwest.latitude
+        + ","
+        + quantizedBounds.southwest.longitude
+        + ","
+        + quantizedBounds.northeast.longitude
+        + "|"
+        + resolution
+        + "|"
+        + pollutionType
+        + "|"
+        + deviceId;
+  }
+
+  /**
+   * Returns the memory cache key of the image for {@link #key}, decoded as requested. Maps of
+   * different sizes or opacity settings decode the same response differently, while the disk cache
+   * stores the response itself under {@link #key}.
+   */
+  static String bitmapKey(String key, int targetWidth, int targetHeight, boolean opaque) {
+    return key + "|" + targetWidth + "x" + targetHeight + (opaque ? "|opaque" : "|alpha");
+  }
+
+  private Bitmap getBitmap(String key) {
+    final MemoryEntry entry = memoryCache.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (isExpired(entry.storedAt)) {
+      memoryCache.remove(key);
+      return null;
+    }
+    return entry.bitmap;
+  }
+
+  private void putBitmap(String key, Bitmap bitmap) {
+    memoryCache.put(key, new MemoryEntry(bitmap, System.currentTimeMillis()));
+  }
+
+  /** Returns the cached response bytes for the key, or null if absent or expired. */
+  synchronized byte[] getBytes(String key) {
+    loadDiskIndex();
+    final String fileName = fileName(key);
+    if (!diskIndex.containsKey(fileName)) {
+      return null;
+    }
+    final File file = new File(directory, fileName);
+    if (isExpired(file.lastModified())) {
+      removeFile(fileName);
+      return null;
+    }
+    // Marks the entry as most recently used.
+    diskIndex.get(fileName);
+    try {
+      return readFile(file);
+    } catch (IOException e) {
+      Log.e(TAG, "Failed to read cached overlay " + fileName, e);
+      removeFile(fileName);
+      return null;
+    }
+  }
+
+  synchronized void putBytes(String key, byte[] data) {
+    loadDiskIndex();
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      return;
+    }
+    final String fileName = fileName(key);
+    removeFile(fileName);
+    final File file = new File(directory, fileName);
+    try {
+      final FileOutputStream outputStream = new FileOutputStream(file);
+      try {
+        outputStream.write(data);
+      } finally {
+        outputStream.close();
+      }
+    } catch (IOException e) {
+      Log.e(TAG, "Failed to write cached overlay " + fileName, e);
+      file.delete();
+      return;
+    }
+    diskIndex.put(fileName, (long) data.length);
+    diskBytes += data.length;
+    trimDisk();
+  }
+
+  void clearMemory() {
+    memoryCache.evictAll();
+    bitmapPool.clear();
+  }
+
+  private static boolean isExpired(long storedAt) {
+    return System.currentTimeMillis() - storedAt > TTL_MILLIS;
+  }
+
+  private void loadDiskIndex() {
+    if (diskIndexLoaded) {
+      return;
+    }
+    diskIndexLoaded = true;
+    final File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    // Without access times, the write time is the best approximation of recency.
+    Arrays.sort(
+        files,
+        new Comparator<File>() {
+          @Override
+          public int compare(File a, File b) {
+            final long difference = a.lastModified() - b.lastModified();
+            return difference < 0 ? -1 : difference > 0 ? 1 : 0;
+          }
+        });
+    for (File file : files) {
+      if (isExpired(file.lastModified())) {
+        file.delete();
+        continue;
+      }
+      diskIndex.put(file.getName(), file.length());
+      diskBytes += file.length();
+    }
+    trimDisk();
+  }
+
+  private void trimDisk() {
+    final Iterator<Map.Entry<String, Long>> iterator = diskIndex.entrySet().iterator();
+    final List<String> evicted = new ArrayList<>();
+    while (diskBytes > MAX_DISK_BYTES && iterator.hasNext()) {
+      final Map.Entry<String, Long> eldest = iterator.next();
+      evicted.add(eldest.getKey());
+      diskBytes -= eldest.getValue();
+      iterator.remove();
+    }
+    for (String fileName : evicted) {
+      new File(directory, fileName).delete();
+    }
+  }
+
+  private void removeFile(String fileName) {
+    final Long size = diskIndex.remove(fileName);
+    if (size != null) {
+      diskBytes -= size;
+    }
+    new File(directory, fileName).delete();
+  }
+
+  private static byte[] readFile(File file) throws IOException {
+    final byte[] data = new byte[(int) file.length()];
+    final FileInputStream inputStream = new FileInputStream(file);
+    try {
+      int offset = 0;
+      while (offset < data.length) {
+        final int read = inputStream.read(data, offset, data.length - offset);
+        if (read == -1) {
+          throw new IOException("Unexpected end of " + file);
+        }
+        offset += read;
+      }
+      return data;
+    } finally {
+      inputStream.close();
+    }
+  }
+
+  private static String fileName(String key) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes("UTF-8"));
+      final StringBuilder builder = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        builder.append(Character.forDigit((b >> 4) & 0xf, 16));
+        builder.append(Character.forDigit(b & 0xf, 16));
+      }
+      return builder.toString();
+    } catch (NoSuchAlgorithmException | IOException e) {
+      // Both SHA-1 and UTF-8 are guaranteed to be available.
+      throw new IllegalStateException(e);
+    }
+  }
+}
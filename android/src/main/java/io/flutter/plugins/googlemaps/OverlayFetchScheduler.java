@@ -0,0 +1,292 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import com.google.android.gms.maps.model.LatLngBounds;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fetches the pollution overlay image for the visible region.
+ *
+ * <p>Camera moves are debounced and coalesced so that only the latest viewport is fetched. Starting
+ * a new fetch cancels the one in flight, including its HTTP connection, and results are only
+ * delivered if they still match the most recently requested bounds. Images are looked up in the
+ * {@link OverlayCache} before going to the network, and decoded no larger than the map needs into
+ * pooled bitmaps. All public methods must be called on the main thread, and {@link Listener} is
+ * invoked on it.
+ */
+class OverlayFetchScheduler {
+  private static final String TAG = "OverlayFetchScheduler";
+  private static final long DEBOUNCE_MILLIS = 300;
+  private static final int TIMEOUT_MILLIS = 15000;
+
+  /**
+   * Receives overlay images on the main thread. Delivered bitmaps are acquired from the {@link
+   * OverlayCache}, and the listener must release each one once it no longer displays it.
+   */
+  interface Listener {
+    void onOverlayLoaded(Bitmap bitmap, LatLngBounds bounds);
+  }
+
+  /** A single overlay fetch, cancellable from any thread. */
+  private static final class Request {
+    final LatLngBounds bounds;
+    final String url;
+    final String cacheKey;
+    // The memory cache key, which also depends on how the image is decoded.
+    final String bitmapKey;
+    final int targetWidth;
+    final int targetHeight;
+    final boolean opaque;
+    private volatile boolean cancelled;
+    private HttpURLConnection connection;
+
+    Request(
+        LatLngBounds bounds,
+        String url,
+        String cacheKey,
+        int targetWidth,
+        int targetHeight,
+        boolean opaque) {
+      this.bounds = bounds;
+      this.url = url;
+      this.cacheKey = cacheKey;
+      this.bitmapKey = OverlayCache.bitmapKey(cacheKey, targetWidth, targetHeight, opaque);
+      this.targetWidth = targetWidth;
+      this.targetHeight = targetHeight;
+      this.opaque = opaque;
+    }
+
+    synchronized HttpURLConnection open() throws IOException {
+      if (cancelled) {
+        return null;
+      }
+      connection = (HttpURLConnection) new URL(url).openConnection();
+      connection.setConnectTimeout(TIMEOUT_MILLIS);
+      connection.setReadTimeout(TIMEOUT_MILLIS);
+      return connection;
+    }
+
+    void cancel() {
+      cancelled = true;
+      final HttpURLConnection toDisconnect;
+      synchronized (this) {
+        toDisconnect = connection;
+      }
+      if (toDisconnect != null) {
+        // Aborts a blocked connect or read on the fetch thread.
+        toDisconnect.disconnect();
+      }
+    }
+
+    boolean isCancelled() {
+      return cancelled;
+    }
+  }
+
+  private final Listener listener;
+  private final OverlayCache cache;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final Runnable debouncedFetch =
+      new Runnable() {
+        @Override
+        public void run() {
+          fetchLatest();
+        }
+      };
+  private Request latest;
+  private Request inFlight;
+  private Future<?> inFlightFuture;
+
+  OverlayFetchScheduler(Listener listener, OverlayCache cache) {
+    this.listener = listener;
+    this.cache = cache;
+  }
+
+  /**
+   * Records the latest viewport and fetches it once the camera has settled.
+   *
+   * @param targetWidth the width in pixels the image is displayed at, or 0 to decode it in full.
+   * @param targetHeight the height in pixels the image is displayed at, or 0 to decode it in full.
+   * @param opaque whether the image has no transparency and can be decoded without alpha.
+   */
+  void schedule(
+      LatLngBounds bounds,
+      String url,
+      String cacheKey,
+      int targetWidth,
+      int targetHeight,
+      boolean opaque) {
+    latest = new Request(bounds, url, cacheKey, targetWidth, targetHeight, opaque);
+    mainHandler.removeCallbacks(debouncedFetch);
+    mainHandler.postDelayed(debouncedFetch, DEBOUNCE_MILLIS);
+  }
+
+  /** Like {@link #schedule}, but fetches immediately, superseding any scheduled fetch. */
+  void fetchNow(
+      LatLngBounds bounds,
+      String url,
+      String cacheKey,
+      int targetWidth,
+      int targetHeight,
+      boolean opaque) {
+    latest = new Request(bounds, url, cacheKey, targetWidth, targetHeight, opaque);
+    mainHandler.removeCallbacks(debouncedFetch);
+    fetchLatest();
+  }
+
+  void cancel() {
+    mainHandler.removeCallbacks(debouncedFetch);
+    latest = null;
+    cancelInFlight();
+  }
+
+  void dispose() {
+    cancel();
+    executor.shutdownNow();
+  }
+
+  private void fetchLatest() {
+    final Request request = latest;
+    if (request == null) {
+      return;
+    }
+    if (inFlight != null && inFlight.bitmapKey.equals(request.bitmapKey)) {
+      // The same viewport is already being fetched at the same size.
+      latest = inFlight;
+      return;
+    }
+    cancelInFlight();
+    final Bitmap cached = cache.acquireBitmap(request.bitmapKey);
+    if (cached != null) {
+      latest = null;
+      listener.onOverlayLoaded(cached, request.bounds);
+      return;
+    }
+    inFlight = request;
+    inFlightFuture =
+        executor.submit(
+            new Runnable() {
+              @Override
+              public void run() {
+                final Bitmap bitmap = load(request);
+                if (request.isCancelled()) {
+                  cache.releaseBitmap(bitmap);
+                  return;
+                }
+                mainHandler.post(
+                    new Runnable() {
+                      @Override
+                      public void run() {
+                        deliver(request, bitmap);
+                      }
+                    });
+              }
+            });
+  }
+
+  private void cancelInFlight() {
+    if (inFlight != null) {
+      inFlight.cancel();
+      inFlight = null;
+    }
+    if (inFlightFuture != null) {
+      inFlightFuture.cancel(true);
+      inFlightFuture = null;
+    }
+  }
+
+  private void deliver(Request request, Bitmap bitmap) {
+    if (request != inFlight) {
+      cache.releaseBitmap(bitmap);
+      return;
+    }
+    inFlight = null;
+    inFlightFuture = null;
+    if (latest == null || !latest.bitmapKey.equals(request.bitmapKey) || request.isCancelled()) {
+      // The viewport, or the map's size, has moved on since this fetch started.
+      cache.releaseBitmap(bitmap);
+      return;
+    }
+    // The result already covers the latest viewport, so a pending fetch of it is redundant.
+    mainHandler.removeCallbacks(debouncedFetch);
+    latest = null;
+    if (bitmap == null) {
+      Log.e(TAG, "Overlay image could not be loaded");
+      return;
+    }
+    listener.onOverlayLoaded(bitmap, request.bounds);
+  }
+
+  /**
+   * Loads the image from the disk cache or the network and returns it acquired from the cache.
+   * Runs on the executor.
+   */
+  private Bitmap load(Request request) {
+    byte[] data = cache.getBytes(request.cacheKey);
+    final boolean fromDisk = data != null;
+    if (!fromDisk) {
+      data = download(request);
+    }
+    if (data == null || request.isCancelled()) {
+      return null;
+    }
+    final Bitmap bitmap =
+        cache
+            .getBitmapPool()
+            .decode(data, request.targetWidth, request.targetHeight, request.opaque);
+    if (bitmap == null) {
+      return null;
+    }
+    if (!fromDisk) {
+      cache.putBytes(request.cacheKey, data);
+    }
+    cache.putAndAcquireBitmap(request.bitmapKey, bitmap);
+    return bitmap;
+  }
+
+  private static byte[] download(Request request) {
+    HttpURLConnection connection = null;
+    try {
+      connection = request.open();
+      if (connection == null) {
+        return null;
+      }
+      final InputStream inputStream = connection.getInputStream();
+      try {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+          outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+      } finally {
+        inputStream.close();
+      }
+    } catch (IOException e) {
+      if (!request.isCancelled()) {
+        Log.e(TAG, "Overlay request failed: " + request.url, e);
+      }
+      return null;
+    } finally {
+      if (connection != null) {
+        connection.disconnect();
+      }
+    }
+  }
+}
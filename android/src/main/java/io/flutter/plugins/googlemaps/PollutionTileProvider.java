@@ -0,0 +1,109 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import com.google.android.gms.maps.model.Tile;
+import com.google.android.gms.maps.model.TileProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Serves the pollution layer as fixed XYZ tiles.
+ *
+ * <p>Each tile is requested from the {@code meth=bounds} endpoint with the tile's own bounds, so
+ * panning only fetches newly exposed tiles and the Maps SDK takes care of caching and uploading
+ * them. {@link #getTile} is called by the SDK on its own background threads.
+ */
+class PollutionTileProvider implements TileProvider {
+  private static final String TAG = "PollutionTileProvider";
+  private static final String BASE_URL =
+      "http://ec2-52-56-59-47.eu-west-2.compute.amazonaws.com/?meth=bounds";
+  private static final int TIMEOUT_MILLIS = 15000;
+
+  private final String deviceId;
+
+  PollutionTileProvider(String deviceId) {
+    this.deviceId = deviceId;
+  }
+
+  static String boundsUrl(double north, double south, double west, double east, String deviceId) {
+    return BASE_URL
+        + "&N="
+        + north
+        + "&S="
+        + south
+        + "&W="
+        + west
+        + "&E="
+        + east
+        + "&RAD=15&SIZE=50"
+        + "&DID="
+        + deviceId
+        + "&RET=IMG";
+  }
+
+  @Override
+  public Tile getTile(int x, int y, int zoom) {
+    final double tiles = 1 << zoom;
+    final double west = x / tiles * 360.0 - 180.0;
+    final double east = (x + 1) / tiles * 360.0 - 180.0;
+    final double north = tileLatitude(y, tiles);
+    final double south = tileLatitude(y + 1, tiles);
+    final byte[] data;
+    try {
+      data = download(boundsUrl(north, south, west, east, deviceId));
+    } catch (IOException e) {
+      Log.e(TAG, "Failed to load tile " + zoom + "/" + x + "/" + y, e);
+      // A null tile is retried later by the SDK.
+      return null;
+    }
+    if (data == null) {
+      return NO_TILE;
+    }
+    // Only the image dimensions are needed; the SDK decodes the bytes itself.
+    final BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inJustDecodeBounds = true;
+    BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    if (options.outWidth <= 0 || options.outHeight <= 0) {
+      return NO_TILE;
+    }
+    return new Tile(options.outWidth, options.outHeight, data);
+  }
+
+  private static double tileLatitude(int y, double tiles) {
+    return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y / tiles))));
+  }
+
+  /** Returns the response body, or null if the server has no image for this tile. */
+  private static byte[] download(String url) throws IOException {
+    final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    connection.setConnectTimeout(TIMEOUT_MILLIS);
+    connection.setReadTimeout(TIMEOUT_MILLIS);
+    try {
+      if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+        return null;
+      }
+      final InputStream inputStream = connection.getInputStream();
+      try {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+          outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+      } finally {
+        inputStream.close();
+      }
+    } finally {
+      connection.disconnect();
+    }
+  }
+}
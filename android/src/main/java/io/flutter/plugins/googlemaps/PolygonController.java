@@ -11,13 +11,11 @@ import java.util.List;
 /** Controller of a single Polygon on the map. */
 class PolygonController implements PolygonOptionsSink {
   private final Polygon polygon;
-  private final String googleMapsPolygonId;
   private boolean consumeTapEvents;
 
   PolygonController(Polygon polygon, boolean consumeTapEvents) {
     this.polygon = polygon;
     this.consumeTapEvents = consumeTapEvents;
-    this.googleMapsPolygonId = polygon.getId();
   }
 
   void remove() {
@@ -65,10 +63,6 @@ class PolygonController implements PolygonOptionsSink {
     polygon.setZIndex(zIndex);
   }
 
-  String getGoogleMapsPolygonId() {
-    return googleMapsPolygonId;
-  }
-
   boolean consumeTapEvents() {
     return consumeTapEvents;
   }
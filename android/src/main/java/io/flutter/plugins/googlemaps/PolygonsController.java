@@ -8,20 +8,16 @@ import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.model.Polygon;
 import com.google.android.gms.maps.model.PolygonOptions;
 import io.flutter.plugin.common.MethodChannel;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 class PolygonsController {
 
-  private final Map<String, PolygonController> polygonIdToController;
-  private final Map<String, String> googleMapsPolygonIdToDartPolygonId;
+  private final HandleTable<PolygonController> polygons = new HandleTable<>();
   private final MethodChannel methodChannel;
   private GoogleMap googleMap;
 
   PolygonsController(MethodChannel methodChannel) {
-    this.polygonIdToController = new HashMap<>();
-    this.googleMapsPolygonIdToDartPolygonId = new HashMap<>();
     this.methodChannel = methodChannel;
   }
 
@@ -29,6 +25,11 @@ class PolygonsController {
     this.googleMap = googleMap;
   }
 
+  /** The number of polygons on the map. */
+  int size() {
+    return polygons.size();
+  }
+
   void addPolygons(List<Object> polygonsToAdd) {
     if (polygonsToAdd != null) {
       for (Object polygonToAdd : polygonsToAdd) {
@@ -54,25 +55,24 @@ class PolygonsController {
         continue;
       }
       String polygonId = (String) rawPolygonId;
-      final PolygonController polygonController = polygonIdToController.remove(polygonId);
+      final PolygonController polygonController = polygons.remove(polygonId);
       if (polygonController != null) {
         polygonController.remove();
-        googleMapsPolygonIdToDartPolygonId.remove(polygonController.getGoogleMapsPolygonId());
       }
     }
   }
 
-  boolean onPolygonTap(String googlePolygonId) {
-    String polygonId = googleMapsPolygonIdToDartPolygonId.get(googlePolygonId);
-    if (polygonId == null) {
+  boolean onPolygonTap(Polygon googlePolygon) {
+    if (!(googlePolygon.getTag() instanceof Integer)) {
       return false;
     }
-    methodChannel.invokeMethod("polygon#onTap", Convert.polygonIdToJson(polygonId));
-    PolygonController polygonController = polygonIdToController.get(polygonId);
-    if (polygonController != null) {
-      return polygonController.consumeTapEvents();
+    final int handle = (Integer) googlePolygon.getTag();
+    final PolygonController polygonController = polygons.get(handle);
+    if (polygonController == null) {
+      return false;
     }
-    return false;
+    methodChannel.invokeMethod("polygon#onTap", Convert.polygonIdToJson(polygons.idOf(handle)));
+    return polygonController.consumeTapEvents();
   }
 
   private void addPolygon(Object polygon) {
@@ -89,8 +89,7 @@ class PolygonsController {
       String polygonId, PolygonOptions polygonOptions, boolean consumeTapEvents) {
     final Polygon polygon = googleMap.addPolygon(polygonOptions);
     PolygonController controller = new PolygonController(polygon, consumeTapEvents);
-    polygonIdToController.put(polygonId, controller);
-    googleMapsPolygonIdToDartPolygonId.put(polygon.getId(), polygonId);
+    polygon.setTag(polygons.put(polygonId, controller));
   }
 
   private void changePolygon(Object polygon) {
@@ -98,7 +97,7 @@ class PolygonsController {
       return;
     }
     String polygonId = getPolygonId(polygon);
-    PolygonController polygonController = polygonIdToController.get(polygonId);
+    PolygonController polygonController = polygons.get(polygonId);
     if (polygonController != null) {
       Convert.interpretPolygonOptions(polygon, polygonController);
     }
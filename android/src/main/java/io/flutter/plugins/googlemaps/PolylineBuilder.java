@@ -14,10 +14,13 @@ class PolylineBuilder implements PolylineOptionsSink {
   private final PolylineOptions polylineOptions;
   private boolean consumeTapEvents;
   private final float density;
+  private final int zoomBucket;
+  private SimplifiedPolyline points;
 
-  PolylineBuilder(float density) {
+  PolylineBuilder(float density, int zoomBucket) {
     this.polylineOptions = new PolylineOptions();
     this.density = density;
+    this.zoomBucket = zoomBucket;
   }
 
   PolylineOptions build() {
@@ -28,6 +31,10 @@ class PolylineBuilder implements PolylineOptionsSink {
     return consumeTapEvents;
   }
 
+  SimplifiedPolyline getPoints() {
+    return points;
+  }
+
   @Override
   public void setColor(int color) {
     polylineOptions.color(color);
@@ -50,7 +57,8 @@ class PolylineBuilder implements PolylineOptionsSink {
 
   @Override
   public void setPoints(List<LatLng> points) {
-    polylineOptions.addAll(points);
+    this.points = new SimplifiedPolyline(points);
+    polylineOptions.addAll(this.points.pointsForBucket(zoomBucket));
   }
 
   @Override
@@ -4,64 +4,173 @@
 
 package io.flutter.plugins.googlemaps;
 
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.ButtCap;
 import com.google.android.gms.maps.model.Cap;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.PatternItem;
 import com.google.android.gms.maps.model.Polyline;
+import com.google.android.gms.maps.model.PolylineOptions;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
-/** Controller of a single Polyline on the map. */
+/**
+ * Controller of a single Polyline on the map.
+ *
+ * <p>Points appended with {@link #appendPoints} may be drawn by further map polylines, called
+ * segments, so that appending never rewrites more than one segment's points. Each segment starts
+ * at the last point of the one before it, and all of them share the style of the first.
+ */
 class PolylineController implements PolylineOptionsSink {
+  static final int DEFAULT_MAX_SEGMENT_POINTS = 1000;
+
+  /** A map polyline drawing a consecutive part of the points. */
+  private static final class Segment {
+    final Polyline polyline;
+    SimplifiedPolyline points;
+    List<LatLng> displayedPoints;
+
+    Segment(Polyline polyline, SimplifiedPolyline points, int zoomBucket) {
+      this.polyline = polyline;
+      this.points = points;
+      this.displayedPoints = points == null ? null : points.pointsForBucket(zoomBucket);
+    }
+
+    List<LatLng> getOriginalPoints() {
+      return points == null ? Collections.<LatLng>emptyList() : points.getOriginalPoints();
+    }
+
+    void setPoints(List<LatLng> points, int zoomBucket) {
+      this.points = new SimplifiedPolyline(points);
+      displayedPoints = this.points.pointsForBucket(zoomBucket);
+      polyline.setPoints(displayedPoints);
+    }
+
+    void setZoomBucket(int zoomBucket) {
+      if (points == null) {
+        return;
+      }
+      final List<LatLng> bucketPoints = points.pointsForBucket(zoomBucket);
+      if (bucketPoints != displayedPoints) {
+        displayedPoints = bucketPoints;
+        polyline.setPoints(bucketPoints);
+      }
+    }
+  }
+
   private final Polyline polyline;
-  private final String googleMapsPolylineId;
+  // The first segment draws with polyline, and only the last one has the end cap.
+  private final List<Segment> segments = new ArrayList<>();
   private boolean consumeTapEvents;
   private final float density;
-
-  PolylineController(Polyline polyline, boolean consumeTapEvents, float density) {
+  private int zoomBucket;
+
+  PolylineController(
+      Polyline polyline,
+      boolean consumeTapEvents,
+      float density,
+      SimplifiedPolyline points,
+      int zoomBucket) {
     this.polyline = polyline;
     this.consumeTapEvents = consumeTapEvents;
     this.density = density;
-    this.googleMapsPolylineId = polyline.getId();
+    this.zoomBucket = zoomBucket;
+    segments.add(new Segment(polyline, points, zoomBucket));
   }
 
   void remove() {
-    polyline.remove();
+    for (Segment segment : segments) {
+      segment.polyline.remove();
+    }
   }
 
   @Override
   public void setConsumeTapEvents(boolean consumeTapEvents) {
     this.consumeTapEvents = consumeTapEvents;
-    polyline.setClickable(consumeTapEvents);
+    for (Segment segment : segments) {
+      segment.polyline.setClickable(consumeTapEvents);
+    }
   }
 
   @Override
   public void setColor(int color) {
-    polyline.setColor(color);
+    for (Segment segment : segments) {
+      segment.polyline.setColor(color);
+    }
   }
 
   @Override
   public void setEndCap(Cap endCap) {
-    polyline.setEndCap(endCap);
+    lastSegment().polyline.setEndCap(endCap);
   }
 
   @Override
   public void setGeodesic(boolean geodesic) {
-    polyline.setGeodesic(geodesic);
+    for (Segment segment : segments) {
+      segment.polyline.setGeodesic(geodesic);
+    }
   }
 
   @Override
   public void setJointType(int jointType) {
-    polyline.setJointType(jointType);
+    for (Segment segment : segments) {
+      segment.polyline.setJointType(jointType);
+    }
   }
 
   @Override
   public void setPattern(List<PatternItem> pattern) {
-    polyline.setPattern(pattern);
+    for (Segment segment : segments) {
+      segment.polyline.setPattern(pattern);
+    }
   }
 
+  /** Replaces all points, including appended ones, leaving just the first segment. */
   @Override
   public void setPoints(List<LatLng> points) {
-    polyline.setPoints(points);
+    if (segments.size() > 1) {
+      polyline.setEndCap(lastSegment().polyline.getEndCap());
+      for (int i = segments.size() - 1; i > 0; i--) {
+        segments.remove(i).polyline.remove();
+      }
+    }
+    segments.get(0).setPoints(points, zoomBucket);
+  }
+
+  /**
+   * Adds the points to the end of the line, rewriting only the last segment's points.
+   *
+   * <p>A segment that reaches maxSegmentPoints is left as it is and the points continue in a new
+   * segment, so the cost of an append does not grow with the length of the line.
+   */
+  void appendPoints(List<LatLng> newPoints, int maxSegmentPoints, GoogleMap googleMap) {
+    if (maxSegmentPoints < 2) {
+      throw new IllegalArgumentException("maxSegmentPoints must be at least 2");
+    }
+    int next = 0;
+    while (next < newPoints.size()) {
+      Segment segment = lastSegment();
+      List<LatLng> segmentPoints = segment.getOriginalPoints();
+      if (segmentPoints.size() >= maxSegmentPoints) {
+        segment = addSegment(segmentPoints.get(segmentPoints.size() - 1), googleMap);
+        segmentPoints = segment.getOriginalPoints();
+      }
+      final int count = Math.min(maxSegmentPoints - segmentPoints.size(), newPoints.size() - next);
+      final List<LatLng> points = new ArrayList<>(segmentPoints.size() + count);
+      points.addAll(segmentPoints);
+      points.addAll(newPoints.subList(next, next + count));
+      segment.setPoints(points, zoomBucket);
+      next += count;
+    }
+  }
+
+  /** Swaps in the vertex sets simplified for the given zoom bucket, where they differ. */
+  void setZoomBucket(int zoomBucket) {
+    this.zoomBucket = zoomBucket;
+    for (Segment segment : segments) {
+      segment.setZoomBucket(zoomBucket);
+    }
   }
 
   @Override
@@ -71,24 +180,56 @@ class PolylineController implements PolylineOptionsSink {
 
   @Override
   public void setVisible(boolean visible) {
-    polyline.setVisible(visible);
+    for (Segment segment : segments) {
+      segment.polyline.setVisible(visible);
+    }
   }
 
   @Override
   public void setWidth(float width) {
-    polyline.setWidth(width * density);
+    for (Segment segment : segments) {
+      segment.polyline.setWidth(width * density);
+    }
   }
 
   @Override
   public void setZIndex(float zIndex) {
-    polyline.setZIndex(zIndex);
-  }
-
-  String getGoogleMapsPolylineId() {
-    return googleMapsPolylineId;
+    for (Segment segment : segments) {
+      segment.polyline.setZIndex(zIndex);
+    }
   }
 
   boolean consumeTapEvents() {
     return consumeTapEvents;
   }
+
+  private Segment lastSegment() {
+    return segments.get(segments.size() - 1);
+  }
+
+  /** Starts a segment at the given point, moving the end cap to it. */
+  private Segment addSegment(LatLng start, GoogleMap googleMap) {
+    final Polyline last = lastSegment().polyline;
+    final PolylineOptions options =
+        new PolylineOptions()
+            .add(start)
+            .clickable(polyline.isClickable())
+            .color(polyline.getColor())
+            .geodesic(polyline.isGeodesic())
+            .jointType(polyline.getJointType())
+            .pattern(polyline.getPattern())
+            .visible(polyline.isVisible())
+            .width(polyline.getWidth())
+            .zIndex(polyline.getZIndex())
+            .endCap(last.getEndCap());
+    final Polyline segmentPolyline = googleMap.addPolyline(options);
+    // Taps on any segment are reported for this polyline.
+    segmentPolyline.setTag(polyline.getTag());
+    last.setEndCap(new ButtCap());
+    final Segment segment =
+        new Segment(
+            segmentPolyline, new SimplifiedPolyline(Collections.singletonList(start)), zoomBucket);
+    segments.add(segment);
+    return segment;
+  }
 }
@@ -5,6 +5,7 @@
 package io.flutter.plugins.googlemaps;
 
 import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.Polyline;
 import com.google.android.gms.maps.model.PolylineOptions;
 import io.flutter.plugin.common.MethodChannel;
@@ -14,21 +15,28 @@ import java.util.Map;
 
 class PolylinesController {
 
-  private final Map<String, PolylineController> polylineIdToController;
-  private final Map<String, String> googleMapsPolylineIdToDartPolylineId;
+  private final HandleTable<PolylineController> polylines = new HandleTable<>();
+  // The options Dart last sent for each polyline. Dart sends all options of a polyline when any
+  // of them changes, so only those that differ from these are applied.
+  private final Map<String, Object> polylineIdToDartOptions = new HashMap<>();
   private final MethodChannel methodChannel;
   private GoogleMap googleMap;
   private final float density;
+  private int zoomBucket = SimplifiedPolyline.FULL_RESOLUTION;
 
   PolylinesController(MethodChannel methodChannel, float density) {
-    this.polylineIdToController = new HashMap<>();
-    this.googleMapsPolylineIdToDartPolylineId = new HashMap<>();
     this.methodChannel = methodChannel;
     this.density = density;
   }
 
   void setGoogleMap(GoogleMap googleMap) {
     this.googleMap = googleMap;
+    this.zoomBucket = SimplifiedPolyline.zoomBucket(googleMap.getCameraPosition().zoom);
+  }
+
+  /** The number of polylines on the map. */
+  int size() {
+    return polylines.size();
   }
 
   void addPolylines(List<Object> polylinesToAdd) {
@@ -56,53 +64,93 @@ class PolylinesController {
         continue;
       }
       String polylineId = (String) rawPolylineId;
-      final PolylineController polylineController = polylineIdToController.remove(polylineId);
+      polylineIdToDartOptions.remove(polylineId);
+      final PolylineController polylineController = polylines.remove(polylineId);
       if (polylineController != null) {
         polylineController.remove();
-        googleMapsPolylineIdToDartPolylineId.remove(polylineController.getGoogleMapsPolylineId());
       }
     }
   }
 
-  boolean onPolylineTap(String googlePolylineId) {
-    String polylineId = googleMapsPolylineIdToDartPolylineId.get(googlePolylineId);
-    if (polylineId == null) {
-      return false;
+  void setPolylinePoints(String polylineId, List<LatLng> points) {
+    final PolylineController polylineController = polylines.get(polylineId);
+    if (polylineController != null) {
+      polylineController.setPoints(points);
     }
-    methodChannel.invokeMethod("polyline#onTap", Convert.polylineIdToJson(polylineId));
-    PolylineController polylineController = polylineIdToController.get(polylineId);
+  }
+
+  void appendPolylinePoints(String polylineId, List<LatLng> points, int maxSegmentPoints) {
+    final PolylineController polylineController = polylines.get(polylineId);
     if (polylineController != null) {
-      return polylineController.consumeTapEvents();
+      polylineController.appendPoints(points, maxSegmentPoints, googleMap);
+    }
+  }
+
+  void onCameraIdle(float zoom) {
+    final int bucket = SimplifiedPolyline.zoomBucket(zoom);
+    if (bucket == zoomBucket) {
+      return;
+    }
+    zoomBucket = bucket;
+    for (int handle = 0; handle < polylines.handleLimit(); handle++) {
+      final PolylineController polylineController = polylines.get(handle);
+      if (polylineController != null) {
+        polylineController.setZoomBucket(bucket);
+      }
+    }
+  }
+
+  boolean onPolylineTap(Polyline googlePolyline) {
+    if (!(googlePolyline.getTag() instanceof Integer)) {
+      // Not one of the polylines set from Dart.
+      return false;
+    }
+    final int handle = (Integer) googlePolyline.getTag();
+    final PolylineController polylineController = polylines.get(handle);
+    if (polylineController == null) {
+      return false;
     }
-    return false;
+    methodChannel.invokeMethod("polyline#onTap", Convert.polylineIdToJson(polylines.idOf(handle)));
+    return polylineController.consumeTapEvents();
   }
 
   private void addPolyline(Object polyline) {
     if (polyline == null) {
       return;
     }
-    PolylineBuilder polylineBuilder = new PolylineBuilder(density);
+    PolylineBuilder polylineBuilder = new PolylineBuilder(density, zoomBucket);
     String polylineId = Convert.interpretPolylineOptions(polyline, polylineBuilder);
+    polylineIdToDartOptions.put(polylineId, polyline);
     PolylineOptions options = polylineBuilder.build();
-    addPolyline(polylineId, options, polylineBuilder.consumeTapEvents());
+    addPolyline(
+        polylineId, options, polylineBuilder.consumeTapEvents(), polylineBuilder.getPoints());
   }
 
   private void addPolyline(
-      String polylineId, PolylineOptions polylineOptions, boolean consumeTapEvents) {
+      String polylineId,
+      PolylineOptions polylineOptions,
+      boolean consumeTapEvents,
+      SimplifiedPolyline points) {
     final Polyline polyline = googleMap.addPolyline(polylineOptions);
-    PolylineController controller = new PolylineController(polyline, consumeTapEvents, density);
-    polylineIdToController.put(polylineId, controller);
-    googleMapsPolylineIdToDartPolylineId.put(polyline.getId(), polylineId);
+    PolylineController controller =
+        new PolylineController(polyline, consumeTapEvents, density, points, zoomBucket);
+    polyline.setTag(polylines.put(polylineId, controller));
   }
 
+  /**
+   * Applies the options that Dart changed. Points set or appended from the platform side since are
+   * kept unless Dart's own points changed, and unchanged points are not simplified again.
+   */
   private void changePolyline(Object polyline) {
     if (polyline == null) {
       return;
     }
     String polylineId = getPolylineId(polyline);
-    PolylineController polylineController = polylineIdToController.get(polylineId);
+    PolylineController polylineController = polylines.get(polylineId);
     if (polylineController != null) {
-      Convert.interpretPolylineOptions(polyline, polylineController);
+      final Object previousOptions = polylineIdToDartOptions.put(polylineId, polyline);
+      Convert.interpretPolylineOptions(
+          Convert.changedOptions(previousOptions, polyline, "polylineId"), polylineController);
     }
   }
 
@@ -0,0 +1,132 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.PolylineOptions;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Decodes and simplifies {@code map#setPolyLine} route geometry off the platform main thread.
+ *
+ * <p>Each route type has at most one decode in flight. Submitting a new route for a type, or
+ * cancelling it, supersedes the pending one so that stale results are never delivered.
+ * Callbacks are always invoked on the main looper.
+ */
+class RouteDecoder {
+  private static final String TAG = "RouteDecoder";
+
+  static final int FAST_ROUTE = 1;
+  static final int CLEAN_ROUTE = 2;
+  static final int TEMP_ROUTE = 3;
+
+  /** Receives decoded routes on the main looper. */
+  interface Callback {
+    void onRouteDecoded(int type, Route route);
+  }
+
+  /** A decoded route together with its precomputed per-zoom simplifications. */
+  static final class Route {
+    final LatLng[] points;
+    final SimplifiedPolyline simplified;
+    private final int color;
+
+    Route(int type, LatLng[] points) {
+      this.points = points;
+      this.simplified = new SimplifiedPolyline(Arrays.asList(points));
+      this.color =
+          type == FAST_ROUTE ? Color.RED : type == CLEAN_ROUTE ? Color.GREEN : Color.BLUE;
+    }
+
+    PolylineOptions optionsForBucket(int zoomBucket) {
+      return new PolylineOptions()
+          .addAll(simplified.pointsForBucket(zoomBucket))
+          .width(12)
+          .color(color);
+    }
+  }
+
+  private final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+              Thread thread =
+                  new Thread(
+                      new Runnable() {
+                        @Override
+                        public void run() {
+                          Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                          runnable.run();
+                        }
+                      },
+                      TAG);
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  // Indexed by route type. Only accessed on the main thread.
+  private final int[] generations = new int[TEMP_ROUTE + 1];
+  private final Future<?>[] pending = new Future<?>[TEMP_ROUTE + 1];
+
+  void decode(final int type, final Object points, final Callback callback) {
+    cancel(type);
+    final int generation = generations[type];
+    pending[type] =
+        executor.submit(
+            new Runnable() {
+              @Override
+              public void run() {
+                final Route route;
+                try {
+                  route = new Route(type, Convert.toRoutePoints(points));
+                } catch (IllegalArgumentException e) {
+                  Log.e(TAG, "Unable to decode route of type " + type, e);
+                  return;
+                }
+                mainHandler.post(
+                    new Runnable() {
+                      @Override
+                      public void run() {
+                        if (generations[type] != generation) {
+                          return;
+                        }
+                        pending[type] = null;
+                        callback.onRouteDecoded(type, route);
+                      }
+                    });
+              }
+            });
+  }
+
+  void cancel(int type) {
+    generations[type]++;
+    if (pending[type] != null) {
+      pending[type].cancel(true);
+      pending[type] = null;
+    }
+  }
+
+  void cancelAll() {
+    for (int type = FAST_ROUTE; type <= TEMP_ROUTE; type++) {
+      cancel(type);
+    }
+  }
+
+  void dispose() {
+    cancelAll();
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,181 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import com.google.android.gms.maps.model.LatLng;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Multi-resolution vertex sets of a polyline, one per zoom bucket.
+ *
+ * <p>A single Douglas-Peucker pass over the Web Mercator projection of the points records, for
+ * every vertex, the largest tolerance at which it would still be kept. The vertex set of a zoom
+ * bucket is then every vertex whose significance exceeds a one pixel tolerance at that zoom, which
+ * is exactly what running Douglas-Peucker with that tolerance would produce.
+ *
+ * <p>The original points are kept unchanged and are used for zooms past the last bucket.
+ */
+final class SimplifiedPolyline {
+  /** Polylines with fewer points than this are always drawn at full resolution. */
+  static final int MIN_POINTS_TO_SIMPLIFY = 64;
+
+  /** Bucket used for zoom levels that should show every original vertex. */
+  static final int FULL_RESOLUTION = Integer.MAX_VALUE;
+
+  private static final int ZOOM_LEVELS_PER_BUCKET = 2;
+  private static final int BUCKET_COUNT = 10;
+  private static final double TOLERANCE_PIXELS = 1.0;
+  private static final double TILE_SIZE = 256.0;
+  private static final double MAX_SIN_LATITUDE = 0.9999;
+
+  private final List<LatLng> original;
+  // Indexed by bucket. Adjacent buckets share the same list when they keep the same vertices.
+  private final List<List<LatLng>> levels;
+
+  SimplifiedPolyline(List<LatLng> original) {
+    this.original = original;
+    this.levels = original.size() < MIN_POINTS_TO_SIMPLIFY ? null : buildLevels(original);
+  }
+
+  /** Returns the zoom bucket that {@link #pointsForBucket} should be queried with. */
+  static int zoomBucket(float zoom) {
+    int bucket = (int) Math.floor(zoom / ZOOM_LEVELS_PER_BUCKET);
+    if (bucket >= BUCKET_COUNT) {
+      return FULL_RESOLUTION;
+    }
+    return Math.max(bucket, 0);
+  }
+
+  List<LatLng> pointsForBucket(int bucket) {
+    if (levels == null || bucket == FULL_RESOLUTION) {
+      return original;
+    }
+    return levels.get(bucket);
+  }
+
+  /** The unsimplified points, e.g. for hit-testing against the true geometry. */
+  List<LatLng> getOriginalPoints() {
+    return original;
+  }
+
+  private static List<List<LatLng>> buildLevels(List<LatLng> points) {
+    final double[] significance = computeSignificance(points);
+    List<LatLng> finer = points;
+    // Build from the finest bucket down so that unchanged levels can share their list.
+    final List<LatLng>[] byBucket = newLevelArray();
+    for (int bucket = BUCKET_COUNT - 1; bucket >= 0; bucket--) {
+      final double tolerance = toleranceForBucket(bucket);
+      int count = 0;
+      for (double s : significance) {
+        if (s > tolerance) {
+          count++;
+        }
+      }
+      if (count == finer.size()) {
+        byBucket[bucket] = finer;
+        continue;
+      }
+      final List<LatLng> level = new ArrayList<>(count);
+      for (int i = 0; i < significance.length; i++) {
+        if (significance[i] > tolerance) {
+          level.add(points.get(i));
+        }
+      }
+      byBucket[bucket] = level;
+      finer = level;
+    }
+    return Arrays.asList(byBucket);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<LatLng>[] newLevelArray() {
+    return (List<LatLng>[]) new List<?>[BUCKET_COUNT];
+  }
+
+  /** One pixel, in normalized world coordinates, at the highest zoom of the bucket. */
+  private static double toleranceForBucket(int bucket) {
+    final int zoom = (bucket + 1) * ZOOM_LEVELS_PER_BUCKET;
+    return TOLERANCE_PIXELS / (TILE_SIZE * Math.pow(2, zoom));
+  }
+
+  private static double[] computeSignificance(List<LatLng> points) {
+    final int n = points.size();
+    final double[] xs = new double[n];
+    final double[] ys = new double[n];
+    for (int i = 0; i < n; i++) {
+      final LatLng point = points.get(i);
+      xs[i] = (point.longitude + 180.0) / 360.0;
+      double sinLatitude = Math.sin(Math.toRadians(point.latitude));
+      sinLatitude = Math.max(-MAX_SIN_LATITUDE, Math.min(MAX_SIN_LATITUDE, sinLatitude));
+      ys[i] = 0.5 - Math.log((1 + sinLatitude) / (1 - sinLatitude)) / (4 * Math.PI);
+    }
+
+    final double[] significance = new double[n];
+    significance[0] = Double.POSITIVE_INFINITY;
+    significance[n - 1] = Double.POSITIVE_INFINITY;
+
+    // Iterative Douglas-Peucker. A vertex survives a tolerance only if every split above it did,
+    // so its significance is capped by that of the segment it was found in.
+    final int[] ranges = new int[2 * n];
+    final double[] caps = new double[n];
+    ranges[0] = 0;
+    ranges[1] = n - 1;
+    caps[0] = Double.POSITIVE_INFINITY;
+    int top = 1;
+    while (top > 0) {
+      top--;
+      final int first = ranges[2 * top];
+      final int last = ranges[2 * top + 1];
+      final double cap = caps[top];
+      if (last - first < 2) {
+        continue;
+      }
+      double maxDistance = -1;
+      int index = first;
+      for (int i = first + 1; i < last; i++) {
+        final double distance = segmentDistanceSquared(xs, ys, i, first, last);
+        if (distance > maxDistance) {
+          maxDistance = distance;
+          index = i;
+        }
+      }
+      final double indexSignificance = Math.min(Math.sqrt(maxDistance), cap);
+      significance[index] = indexSignificance;
+      ranges[2 * top] = first;
+      ranges[2 * top + 1] = index;
+      caps[top] = indexSignificance;
+      top++;
+      ranges[2 * top] = index;
+      ranges[2 * top + 1] = last;
+      caps[top] = indexSignificance;
+      top++;
+    }
+    return significance;
+  }
+
+  private static double segmentDistanceSquared(
+      double[] xs, double[] ys, int point, int start, int end) {
+    final double dx = xs[end] - xs[start];
+    final double dy = ys[end] - ys[start];
+    double x = xs[start];
+    double y = ys[start];
+    final double lengthSquared = dx * dx + dy * dy;
+    if (lengthSquared > 0) {
+      double t = ((xs[point] - x) * dx + (ys[point] - y) * dy) / lengthSquared;
+      if (t > 1) {
+        x = xs[end];
+        y = ys[end];
+      } else if (t > 0) {
+        x += dx * t;
+        y += dy * t;
+      }
+    }
+    final double px = xs[point] - x;
+    final double py = ys[point] - y;
+    return px * px + py * py;
+  }
+}
@@ -0,0 +1,133 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.Projection;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.CameraPosition;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+import com.google.android.gms.maps.model.VisibleRegion;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class MarkersControllerTest {
+  private static final int MAP_ID = 1;
+
+  private GoogleMap googleMap;
+  private Projection projection;
+  private Marker marker;
+  private MarkersController markersController;
+
+  @Before
+  public void setUp() {
+    googleMap = mock(GoogleMap.class);
+    projection = mock(Projection.class);
+    when(googleMap.getCameraPosition())
+        .thenReturn(CameraPosition.fromLatLngZoom(new LatLng(0, 0), 10));
+    when(googleMap.getProjection()).thenReturn(projection);
+    marker = mock(Marker.class);
+    when(googleMap.addMarker(any(MarkerOptions.class))).thenReturn(marker);
+    showRegion(new LatLng(-1, -1), new LatLng(1, 1));
+    markersController = new MarkersController(null, 1);
+    markersController.setGoogleMap(googleMap);
+  }
+
+  @After
+  public void tearDown() {
+    markersController.dispose();
+    IconRegistry.getInstance().releaseAll(MAP_ID);
+  }
+
+  @Test
+  public void culledMarkerKeepsUnregisteredIcon() {
+    final BitmapDescriptor icon = mock(BitmapDescriptor.class);
+    final int handle = IconRegistry.getInstance().register(MAP_ID, icon);
+    markersController.setCullingEnabled(true);
+    final Map<String, Object> options = marker("marker_1", 0.5, 0.5);
+    options.put("icon", Arrays.<Object>asList("fromHandle", handle));
+    markersController.addMarkers(Collections.<Object>singletonList(options));
+    IconRegistry.getInstance().unregister(handle);
+
+    // Pans the marker out of the culling region and back into it.
+    showRegion(new LatLng(10, 10), new LatLng(12, 12));
+    markersController.onCameraIdle(10);
+    showRegion(new LatLng(-1, -1), new LatLng(1, 1));
+    markersController.onCameraIdle(10);
+
+    final ArgumentCaptor<MarkerOptions> shown = ArgumentCaptor.forClass(MarkerOptions.class);
+    verify(googleMap, times(2)).addMarker(shown.capture());
+    assertSame(icon, shown.getAllValues().get(1).getIcon());
+  }
+
+  @Test
+  public void movedMarkerKeepsPositionWhenDartChangesOtherOptions() {
+    markersController.addMarkers(
+        Collections.<Object>singletonList(marker("marker_1", 0.5, 0.5)));
+    final LatLng moved = new LatLng(0.25, 0.25);
+    markersController.setMarkerPositions(
+        Collections.singletonList("marker_1"), Collections.singletonList(moved));
+
+    // Dart resends the position it last set along with the changed alpha.
+    final Map<String, Object> changed = marker("marker_1", 0.5, 0.5);
+    changed.put("alpha", 0.5);
+    markersController.changeMarkers(Collections.<Object>singletonList(changed));
+
+    verify(marker).setAlpha(0.5f);
+    verify(marker).setPosition(moved);
+    verify(marker, never()).setPosition(new LatLng(0.5, 0.5));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void streamedMarkerIndicesStartOverWhenMarkersAreRemoved() {
+    markersController.addMarkers(
+        Collections.<Object>singletonList(marker("marker_1", 0.5, 0.5)));
+    markersController.streamPositions(
+        Collections.singletonList("marker_1"), new double[] {0, 0.25, 0.25, Double.NaN}, 0);
+    markersController.updateMarkers(null, null, Collections.<Object>singletonList("marker_1"));
+
+    markersController.checkStreamedPositions(null, new double[] {0, 0.5, 0.5, Double.NaN});
+  }
+
+  private void showRegion(LatLng southwest, LatLng northeast) {
+    final LatLngBounds bounds = new LatLngBounds(southwest, northeast);
+    when(projection.getVisibleRegion())
+        .thenReturn(
+            new VisibleRegion(
+                southwest,
+                new LatLng(southwest.latitude, northeast.longitude),
+                new LatLng(northeast.latitude, southwest.longitude),
+                northeast,
+                bounds));
+  }
+
+  private static Map<String, Object> marker(String markerId, double latitude, double longitude) {
+    final Map<String, Object> marker = new HashMap<>();
+    marker.put("markerId", markerId);
+    marker.put("position", Arrays.<Object>asList(latitude, longitude));
+    marker.put("rotation", 0.0);
+    return marker;
+  }
+}
@@ -0,0 +1,109 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugins.googlemaps;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.ButtCap;
+import com.google.android.gms.maps.model.CameraPosition;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Polyline;
+import com.google.android.gms.maps.model.PolylineOptions;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class PolylinesControllerTest {
+  private GoogleMap googleMap;
+  private Polyline polyline;
+  // The map polyline of the second segment, once points are appended past the first.
+  private Polyline segment;
+  private PolylinesController polylinesController;
+
+  @Before
+  public void setUp() {
+    googleMap = mock(GoogleMap.class);
+    when(googleMap.getCameraPosition())
+        .thenReturn(CameraPosition.fromLatLngZoom(new LatLng(0, 0), 10));
+    polyline = mock(Polyline.class);
+    segment = mock(Polyline.class);
+    when(googleMap.addPolyline(any(PolylineOptions.class))).thenReturn(polyline, segment);
+    polylinesController = new PolylinesController(null, 1);
+    polylinesController.setGoogleMap(googleMap);
+  }
+
+  @Test
+  public void pointsSetFromPlatformSurviveOtherDartChanges() {
+    polylinesController.addPolylines(
+        Collections.<Object>singletonList(polyline("polyline_1", 0xFF000000)));
+    polylinesController.setPolylinePoints(
+        "polyline_1", Arrays.asList(new LatLng(2, 2), new LatLng(3, 3)));
+
+    // Dart resends the points it last set along with the changed color.
+    polylinesController.changePolylines(
+        Collections.<Object>singletonList(polyline("polyline_1", 0xFFFF0000)));
+
+    verify(polyline).setColor(0xFFFF0000);
+    verify(polyline, times(1)).setPoints(anyList());
+    verify(polyline, never()).setWidth(anyFloat());
+  }
+
+  @Test
+  public void appendedPointsSurviveOtherDartChanges() {
+    polylinesController.addPolylines(
+        Collections.<Object>singletonList(polyline("polyline_1", 0xFF000000)));
+    polylinesController.appendPolylinePoints(
+        "polyline_1", Collections.singletonList(new LatLng(2, 2)), 1000);
+
+    polylinesController.changePolylines(
+        Collections.<Object>singletonList(polyline("polyline_1", 0xFFFF0000)));
+
+    verify(polyline).setColor(0xFFFF0000);
+    verify(polyline, times(1)).setPoints(anyList());
+  }
+
+  @Test
+  public void appendStartsNewSegmentAtMaxSegmentPoints() {
+    when(polyline.getEndCap()).thenReturn(new ButtCap());
+    polylinesController.addPolylines(
+        Collections.<Object>singletonList(polyline("polyline_1", 0xFF000000)));
+
+    polylinesController.appendPolylinePoints(
+        "polyline_1",
+        Arrays.asList(new LatLng(2, 2), new LatLng(3, 3), new LatLng(4, 4)),
+        3);
+
+    // The first segment is filled up to three points, and the second continues from its end.
+    verify(polyline)
+        .setPoints(Arrays.asList(new LatLng(0, 0), new LatLng(1, 1), new LatLng(2, 2)));
+    verify(googleMap, times(2)).addPolyline(any(PolylineOptions.class));
+    verify(segment)
+        .setPoints(Arrays.asList(new LatLng(2, 2), new LatLng(3, 3), new LatLng(4, 4)));
+    verify(polyline).setEndCap(any(ButtCap.class));
+  }
+
+  private static Map<String, Object> polyline(String polylineId, int color) {
+    final Map<String, Object> polyline = new HashMap<>();
+    polyline.put("polylineId", polylineId);
+    polyline.put("color", color);
+    polyline.put("width", 10);
+    polyline.put("points", new double[] {0, 0, 1, 1});
+    return polyline;
+  }
+}
@@ -61,7 +61,7 @@ static int ToInt(NSNumber* data) { return [FLTGoogleMapJsonConversions toInt:dat
 
 static BOOL ToBool(NSNumber* data) { return [FLTGoogleMapJsonConversions toBool:data]; }
 
-static NSArray<CLLocation*>* ToPoints(NSArray* data) {
+static NSArray<CLLocation*>* ToPoints(id data) {
   return [FLTGoogleMapJsonConversions toPoints:data];
 }
 
@@ -84,7 +84,7 @@ static void InterpretPolygonOptions(NSDictionary* data, id<FLTGoogleMapPolygonOp
     [sink setZIndex:ToInt(zIndex)];
   }
 
-  NSArray* points = data[@"points"];
+  id points = data[@"points"];
   if (points) {
     [sink setPoints:ToPoints(points)];
   }
@@ -175,7 +175,7 @@ static void InterpretPolygonOptions(NSDictionary* data, id<FLTGoogleMapPolygonOp
   return _polygonIdToController[polygonId] != nil;
 }
 + (GMSMutablePath*)getPath:(NSDictionary*)polygon {
-  NSArray* pointArray = polygon[@"points"];
+  id pointArray = polygon[@"points"];
   NSArray<CLLocation*>* points = ToPoints(pointArray);
   GMSMutablePath* path = [GMSMutablePath path];
   for (CLLocation* location in points) {
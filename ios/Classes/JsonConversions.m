@@ -44,7 +44,19 @@
                          alpha:((float)((value & 0xFF000000) >> 24)) / 255.0];
 }
 
-+ (NSArray<CLLocation*>*)toPoints:(NSArray*)data {
++ (NSArray<CLLocation*>*)toPoints:(id)data {
+  if ([data isKindOfClass:[FlutterStandardTypedData class]]) {
+    // Interleaved latitudes and longitudes.
+    NSData* bytes = [data data];
+    const double* values = bytes.bytes;
+    NSUInteger count = bytes.length / sizeof(double) / 2;
+    NSMutableArray* points = [[NSMutableArray alloc] initWithCapacity:count];
+    for (NSUInteger i = 0; i < count; i++) {
+      [points addObject:[[CLLocation alloc] initWithLatitude:values[2 * i]
+                                                   longitude:values[2 * i + 1]]];
+    }
+    return points;
+  }
   NSMutableArray* points = [[NSMutableArray alloc] init];
   for (unsigned i = 0; i < [data count]; i++) {
     NSNumber* latitude = data[i][0];
@@ -5,6 +5,7 @@
 library google_maps_flutter;
 
 import 'dart:async';
+import 'dart:convert';
 import 'dart:typed_data';
 import 'dart:ui';
 
@@ -23,8 +24,11 @@ part 'src/controller.dart';
 part 'src/google_map.dart';
 part 'src/joint_type.dart';
 part 'src/location.dart';
+part 'src/map_binary_channel.dart';
+part 'src/map_view_pool.dart';
 part 'src/marker.dart';
 part 'src/marker_updates.dart';
+part 'src/memory_report.dart';
 part 'src/pattern_item.dart';
 part 'src/polygon.dart';
 part 'src/polygon_updates.dart';
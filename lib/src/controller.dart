@@ -8,8 +8,10 @@ part of google_maps_flutter;
 class GoogleMapController {
   GoogleMapController._(this.channel,
       CameraPosition initialCameraPosition,
-      this._googleMapState,) : assert(channel != null) {
+      this._googleMapState,
+      int id,) : assert(channel != null) {
     channel.setMethodCallHandler(_handleMethodCall);
+    _binaryChannel = _MapBinaryChannel(id, _onCameraMove, _onCameraIdle);
   }
 
   static Future<GoogleMapController> init(int id,
@@ -23,6 +25,7 @@ class GoogleMapController {
       channel,
       initialCameraPosition,
       googleMapState,
+      id,
     );
   }
 
@@ -31,6 +34,12 @@ class GoogleMapController {
 
   final _GoogleMapState _googleMapState;
 
+  _MapBinaryChannel _binaryChannel;
+
+  // The index that markers#streamPositions refers to each streamed marker by.
+  // Started over, on both sides, by any markers#update that removes markers.
+  final Map<MarkerId, int> _streamedMarkerIndices = <MarkerId, int>{};
+
   Future<dynamic> _handleMethodCall(MethodCall call) async {
     switch (call.method) {
       case 'camera#onMoveStarted':
@@ -46,9 +55,7 @@ class GoogleMapController {
         }
         break;
       case 'camera#onIdle':
-        if (_googleMapState.widget.onCameraIdle != null) {
-          _googleMapState.widget.onCameraIdle();
-        }
+        _onCameraIdle();
         break;
       case 'marker#onTap':
         _googleMapState.onMarkerTap(call.arguments['markerId']);
@@ -76,11 +83,30 @@ class GoogleMapController {
         _googleMapState
             .onLongPress(LatLng._fromJson(call.arguments['position']));
         break;
+      case 'cluster#onTap':
+        _googleMapState.onClusterTap(MarkerCluster._fromJson(call.arguments));
+        break;
+      case 'map#onInitialOverlaysProgress':
+        _googleMapState.onInitialOverlaysProgress(
+            call.arguments['loaded'], call.arguments['total']);
+        break;
       default:
         throw MissingPluginException();
     }
   }
 
+  void _onCameraMove(CameraPosition position) {
+    if (_googleMapState.widget.onCameraMove != null) {
+      _googleMapState.widget.onCameraMove(position);
+    }
+  }
+
+  void _onCameraIdle() {
+    if (_googleMapState.widget.onCameraIdle != null) {
+      _googleMapState.widget.onCameraIdle();
+    }
+  }
+
   /// Updates configuration options of the map user interface.
   ///
   /// Change listeners are notified once the update has been made on the
@@ -105,10 +131,156 @@ class GoogleMapController {
   /// The returned [Future] completes after listeners have been notified.
   Future<void> _updateMarkers(_MarkerUpdates markerUpdates) async {
     assert(markerUpdates != null);
-    await channel.invokeMethod<void>(
+    if (markerUpdates.markerIdsToRemove.isNotEmpty) {
+      _streamedMarkerIndices.clear();
+    }
+    final Map<dynamic, dynamic> stats =
+        await channel.invokeMethod<Map<dynamic, dynamic>>(
       'markers#update',
       markerUpdates._toMap(),
     );
+    _lastMarkerUpdateStats =
+        stats == null ? null : MarkerUpdateStats._fromMap(stats);
+  }
+
+  MarkerUpdateStats _lastMarkerUpdateStats;
+
+  /// Statistics about the most recent marker update applied on the platform
+  /// side, including how long it took.
+  ///
+  /// Null until markers have been updated, and on platforms that do not
+  /// report them.
+  MarkerUpdateStats get lastMarkerUpdateStats => _lastMarkerUpdateStats;
+
+  /// Uploads a PNG image to the platform once and returns a [BitmapDescriptor]
+  /// that refers to it by a small handle. Android only.
+  ///
+  /// Unlike [BitmapDescriptor.fromBytes], markers using the returned
+  /// descriptor don't resend the image over the platform channel, and the
+  /// image is decoded only once. The icon belongs to this map and stays
+  /// registered until [unregisterIcon] is called or the map is disposed.
+  Future<BitmapDescriptor> registerIcon(Uint8List pngBytes) async {
+    assert(pngBytes != null);
+    final int handle = await channel.invokeMethod<int>(
+        'icons#register', <String, dynamic>{'bytes': pngBytes});
+    return BitmapDescriptor._(<dynamic>['fromHandle', handle]);
+  }
+
+  /// Releases an icon returned by [registerIcon].
+  ///
+  /// Markers already using the icon keep it, including those currently hidden
+  /// by clustering or culling, but it can no longer be used for new markers.
+  Future<void> unregisterIcon(BitmapDescriptor icon) async {
+    assert(icon != null && icon._json[0] == 'fromHandle');
+    await channel.invokeMethod<void>(
+        'icons#unregister', <String, dynamic>{'handle': icon._json[1]});
+  }
+
+  /// Returns statistics of the marker icon cache, which is shared by all maps
+  /// in the app. Android only.
+  ///
+  /// The map contains the cumulative `hits`, `misses` and `evictions`, and the
+  /// current `sizeBytes` and `maxSizeBytes` of the cached icon bitmaps.
+  Future<Map<String, int>> getIconCacheStats() async {
+    final Map<dynamic, dynamic> stats =
+        await channel.invokeMethod<Map<dynamic, dynamic>>('icons#getCacheStats');
+    return stats.cast<String, int>();
+  }
+
+  /// Moves markers that are already on the map. Android only.
+  ///
+  /// Only the positions are sent, as one compact binary message, which makes
+  /// this cheap enough to call every frame.
+  ///
+  /// A marker keeps the position set here when a later [GoogleMap.markers]
+  /// update changes its other properties. Only an update that changes the
+  /// marker's own [Marker.position] moves it back under the widget's control.
+  Future<void> updateMarkerPositions(Map<MarkerId, LatLng> positions) {
+    assert(positions != null);
+    return _binaryChannel.sendMarkerPositions(positions);
+  }
+
+  /// Moves markers that are already on the map, gliding them to their new
+  /// positions over [interpolationDuration]. Android only.
+  ///
+  /// The updates are sent as one packed array of numbers, and each marker id
+  /// is only sent the first time it is streamed. With interpolation the
+  /// platform moves the markers every display frame, so tracked vehicles move
+  /// smoothly with one call per position fix.
+  ///
+  /// A marker keeps the streamed position, and rotation, when a later
+  /// [GoogleMap.markers] update changes its other properties. Only an update
+  /// that changes the marker's own [Marker.position] moves it back under the
+  /// widget's control. A marker id is sent again after an update that removed
+  /// markers.
+  Future<void> streamMarkerPositions(
+    List<MarkerPositionUpdate> updates, {
+    Duration interpolationDuration = Duration.zero,
+  }) async {
+    assert(updates != null && interpolationDuration != null);
+    final List<String> newMarkerIds = <String>[];
+    final Float64List positions = Float64List(updates.length * 4);
+    for (int i = 0; i < updates.length; i++) {
+      final MarkerPositionUpdate update = updates[i];
+      final int index =
+          _streamedMarkerIndices.putIfAbsent(update.markerId, () {
+        newMarkerIds.add(update.markerId.value);
+        return _streamedMarkerIndices.length;
+      });
+      positions[i * 4] = index.toDouble();
+      positions[i * 4 + 1] = update.position.latitude;
+      positions[i * 4 + 2] = update.position.longitude;
+      positions[i * 4 + 3] = update.rotation ?? double.nan;
+    }
+    await channel.invokeMethod<void>(
+      'markers#streamPositions',
+      <String, dynamic>{
+        'newMarkerIds': newMarkerIds,
+        'positions': positions,
+        'durationMillis': interpolationDuration.inMilliseconds,
+      },
+    );
+  }
+
+  /// Replaces the points of a polyline that is already on the map, as one
+  /// compact binary message. Android only.
+  ///
+  /// The polyline keeps these points when a later [GoogleMap.polylines] update
+  /// changes its other properties. Only an update that changes the polyline's
+  /// own [Polyline.points] replaces them.
+  Future<void> updatePolylinePoints(
+      PolylineId polylineId, List<LatLng> points) {
+    assert(polylineId != null && points != null);
+    return _binaryChannel.sendPolylinePoints(polylineId, points);
+  }
+
+  /// Adds [points] to the end of a polyline that is already on the map.
+  /// Android only.
+  ///
+  /// Only the new points are sent and converted, so the cost of an append
+  /// does not grow with the length of the polyline. The line is drawn in
+  /// segments of at most [maxSegmentPoints] points, and only the last segment
+  /// is rewritten.
+  ///
+  /// The polyline keeps the appended points when a later [GoogleMap.polylines]
+  /// update changes its other properties, so a live trace can be restyled
+  /// while it grows. Only an update that changes the polyline's own
+  /// [Polyline.points] replaces the appended points with those.
+  Future<void> appendPolylinePoints(
+    PolylineId polylineId,
+    List<LatLng> points, {
+    int maxSegmentPoints = 1000,
+  }) async {
+    assert(polylineId != null && points != null);
+    assert(maxSegmentPoints != null && maxSegmentPoints >= 2);
+    await channel.invokeMethod<void>(
+      'polylines#appendPoints',
+      <String, dynamic>{
+        'polylineId': polylineId.value,
+        'points': _latLngsToFloat64List(points),
+        'maxSegmentPoints': maxSegmentPoints,
+      },
+    );
   }
 
   /// Updates polygon configuration.
@@ -205,6 +377,43 @@ class GoogleMapController {
     return LatLngBounds(northeast: northeast, southwest: southwest);
   }
 
+  /// Returns an image of the map as it is currently drawn, encoded in
+  /// [format]. Android only.
+  ///
+  /// The image is [width] by [height] pixels, or the size of the map view when
+  /// they are null. [quality] goes from 0 to 100 and is ignored for
+  /// [SnapshotFormat.png]. Encoding happens off the platform main thread.
+  /// Snapshots are taken one at a time, in the order they were requested.
+  Future<Uint8List> takeSnapshot({
+    SnapshotFormat format = SnapshotFormat.png,
+    int quality = 100,
+    int width,
+    int height,
+  }) {
+    assert(format != null);
+    assert(quality != null && quality >= 0 && quality <= 100);
+    assert((width == null) == (height == null));
+    assert(width == null || (width > 0 && height > 0));
+    return channel.invokeMethod<Uint8List>(
+      'map#takeSnapshot',
+      <String, dynamic>{
+        'format': format.index,
+        'quality': quality,
+        'width': width,
+        'height': height,
+      },
+    );
+  }
+
+  /// Reports what the platform side of the map holds on to, e.g. to check
+  /// that memory is released once the initial overlays are on the map.
+  /// Android only.
+  Future<MapMemoryReport> getMemoryReport() async {
+    final Map<String, dynamic> report =
+        await channel.invokeMapMethod<String, dynamic>('map#getMemoryReport');
+    return MapMemoryReport._fromJson(report);
+  }
+
   /// Return [ScreenCoordinate] of the [LatLng] in the current map view.
   ///
   /// A projection is used to translate between on screen location and geographic coordinates.
@@ -226,19 +435,37 @@ class GoogleMapController {
     return LatLng(latLng[0], latLng[1]);
   }
 
+  /// Updates the pollution overlay settings.
+  ///
+  /// When [useTileOverlay] is true the overlay is drawn from fixed map tiles
+  /// that the platform caches, so panning only loads newly exposed tiles.
+  /// Otherwise a single image covering the visible region is downloaded
+  /// whenever the camera settles.
+  ///
+  /// Set [opaqueOverlay] when the overlay images have no transparency, which
+  /// lets Android decode them with half the memory.
   Future<void> settingDidChange(double overlayResulationValue,
       double impactRadius, int overlayTypeValue,
-      String authorizedUserDeviceId) async
+      String authorizedUserDeviceId,
+      {bool useTileOverlay = false, bool opaqueOverlay = false}) async
   {
     var map = {
       "overlayResulationValue": overlayResulationValue.toString(),
       "authorizedUserDeviceId": authorizedUserDeviceId,
-      "overlayTypeValue": overlayTypeValue
+      "overlayTypeValue": overlayTypeValue,
+      "overlayTileMode": useTileOverlay,
+      "overlayOpaque": opaqueOverlay
     };
     await channel.invokeMethod<List<dynamic>>(
         'map#settingDidChange', map);
   }
 
+  /// Draws a route polyline of the given [type].
+  ///
+  /// [points] may be a [Float64List] of interleaved latitude/longitude values,
+  /// a list of [LatLng], or a JSON array string of the same interleaved values.
+  /// Typed data is decoded on the platform side without any text parsing, so
+  /// it should be preferred for long routes.
   Future<void> setPolyLine(dynamic points,
       int type, double overlayResulationValue,double impactRadius,int overlayTypeValue,
       bool isNewRequest) async
@@ -246,9 +473,24 @@ class GoogleMapController {
     var map = {
       "isNewRequest": isNewRequest.toString(),
       "type": type.toString(),
-      "points": points.toString()
+      "points": _routePointsToPlatform(points)
     };
     await channel.invokeMethod<List<dynamic>>(
         'map#setPolyLine', map);
   }
+
+  static dynamic _routePointsToPlatform(dynamic points) {
+    if (points is Float64List) {
+      return points;
+    }
+    if (points is List<LatLng>) {
+      final Float64List packed = Float64List(points.length * 2);
+      for (int i = 0; i < points.length; i++) {
+        packed[2 * i] = points[i].latitude;
+        packed[2 * i + 1] = points[i].longitude;
+      }
+      return packed;
+    }
+    return points.toString();
+  }
 }
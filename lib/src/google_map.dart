@@ -14,6 +14,12 @@ typedef void MapCreatedCallback(GoogleMapController controller);
 /// This is used in [GoogleMap.onCameraMove].
 typedef void CameraPositionCallback(CameraPosition position);
 
+/// Callback that receives how many of the overlays the map was created with
+/// have been added to it so far.
+///
+/// This is used in [GoogleMap.onInitialOverlaysProgress].
+typedef void InitialOverlaysProgressCallback(int loaded, int total);
+
 class GoogleMap extends StatefulWidget {
   const GoogleMap({
     Key key,
@@ -36,6 +42,11 @@ class GoogleMap extends StatefulWidget {
     this.padding = const EdgeInsets.all(0),
     this.indoorViewEnabled = false,
     this.trafficEnabled = false,
+    this.markerClusteringEnabled = false,
+    this.markerCullingEnabled = false,
+    this.asyncMarkerIconDecodingEnabled = false,
+    this.liteModeEnabled = false,
+    this.cameraMoveThrottle = CameraMoveThrottle.unthrottled,
     this.markers,
     this.polygons,
     this.polylines,
@@ -45,6 +56,9 @@ class GoogleMap extends StatefulWidget {
     this.onCameraIdle,
     this.onTap,
     this.onLongPress,
+    this.onClusterTap,
+    this.initialOverlaysFrameBudget,
+    this.onInitialOverlaysProgress,
   })  : assert(initialCameraPosition != null),
         super(key: key);
 
@@ -114,6 +128,9 @@ class GoogleMap extends StatefulWidget {
   /// not perform expensive operations.
   final CameraPositionCallback onCameraMove;
 
+  /// How often [onCameraMove] is called while the camera moves.
+  final CameraMoveThrottle cameraMoveThrottle;
+
   /// Called when camera movement has ended, there are no pending
   /// animations and the user has stopped interacting with the map.
   final VoidCallback onCameraIdle;
@@ -124,6 +141,29 @@ class GoogleMap extends StatefulWidget {
   /// Called every time a [GoogleMap] is long pressed.
   final ArgumentCallback<LatLng> onLongPress;
 
+  /// Called every time a cluster marker is tapped.
+  ///
+  /// See [markerClusteringEnabled].
+  final ArgumentCallback<MarkerCluster> onClusterTap;
+
+  /// How long adding the initial [markers], [polygons], [polylines] and
+  /// [circles] may take per frame. Android only.
+  ///
+  /// When set, overlays inside the initial camera viewport are added first and
+  /// the rest follow over the next frames, so that a large initial set does
+  /// not block the first frames of the map. Updates to the overlays add any
+  /// that are still pending first. When null, all of them are added before the
+  /// map is first drawn.
+  ///
+  /// Only read when the map is created.
+  final Duration initialOverlaysFrameBudget;
+
+  /// Called after every frame that added initial overlays, until `loaded`
+  /// reaches `total`. Android only.
+  ///
+  /// See [initialOverlaysFrameBudget].
+  final InitialOverlaysProgressCallback onInitialOverlaysProgress;
+
   /// True if a "My Location" layer should be shown on the map.
   ///
   /// This layer includes a location indicator at the current device location,
@@ -168,6 +208,38 @@ class GoogleMap extends StatefulWidget {
   /// Enables or disables the traffic layer of the map
   final bool trafficEnabled;
 
+  /// True if markers that are close together on screen should be grouped into
+  /// a single cluster marker. Android only.
+  ///
+  /// Clusters are recomputed whenever the camera settles, and tapping one
+  /// calls [onClusterTap] instead of the markers' own [Marker.onTap].
+  final bool markerClusteringEnabled;
+
+  /// True if only the markers inside the visible region, plus a margin, should
+  /// be added to the map. Android only.
+  ///
+  /// The rest are added and removed as the camera settles, so very large
+  /// marker sets only cost what is on screen.
+  final bool markerCullingEnabled;
+
+  /// True if large [BitmapDescriptor.fromBytes] marker icons should be decoded
+  /// in the background. Android only.
+  ///
+  /// New markers with such an icon appear once it is decoded, and changed
+  /// markers keep their previous icon until then.
+  final bool asyncMarkerIconDecodingEnabled;
+
+  /// True if the map should be a static image of the initial camera position,
+  /// e.g. for thumbnails in a scrolling list. Android only.
+  ///
+  /// Lite mode maps are much cheaper to create and to scroll. They support
+  /// overlays, including marker clustering and culling, but only report
+  /// [onTap] and [onCameraIdle]. Gestures, the other camera callbacks and
+  /// overlay taps are not available.
+  ///
+  /// Only read when the map is created.
+  final bool liteModeEnabled;
+
   /// Which gestures should be consumed by the map.
   ///
   /// It is possible for other gesture recognizers to be competing with the map on pointer
@@ -202,6 +274,8 @@ class _GoogleMapState extends State<GoogleMap> {
       'polygonsToAdd': _serializePolygonSet(widget.polygons),
       'polylinesToAdd': _serializePolylineSet(widget.polylines),
       'circlesToAdd': _serializeCircleSet(widget.circles),
+      'initialOverlaysFrameBudgetMillis':
+          widget.initialOverlaysFrameBudget?.inMilliseconds,
     };
     if (defaultTargetPlatform == TargetPlatform.android) {
       return AndroidView(
@@ -354,6 +428,19 @@ class _GoogleMapState extends State<GoogleMap> {
       widget.onLongPress(position);
     }
   }
+
+  void onClusterTap(MarkerCluster cluster) {
+    assert(cluster != null);
+    if (widget.onClusterTap != null) {
+      widget.onClusterTap(cluster);
+    }
+  }
+
+  void onInitialOverlaysProgress(int loaded, int total) {
+    if (widget.onInitialOverlaysProgress != null) {
+      widget.onInitialOverlaysProgress(loaded, total);
+    }
+  }
 }
 
 /// Configuration options for the GoogleMaps user interface.
@@ -371,12 +458,17 @@ class _GoogleMapOptions {
     this.scrollGesturesEnabled,
     this.tiltGesturesEnabled,
     this.trackCameraPosition,
+    this.cameraMoveThrottle,
     this.zoomGesturesEnabled,
     this.myLocationEnabled,
     this.myLocationButtonEnabled,
     this.padding,
     this.indoorViewEnabled,
     this.trafficEnabled,
+    this.markerClusteringEnabled,
+    this.markerCullingEnabled,
+    this.asyncMarkerIconDecodingEnabled,
+    this.liteModeEnabled,
   });
 
   static _GoogleMapOptions fromWidget(GoogleMap map) {
@@ -390,12 +482,17 @@ class _GoogleMapOptions {
       scrollGesturesEnabled: map.scrollGesturesEnabled,
       tiltGesturesEnabled: map.tiltGesturesEnabled,
       trackCameraPosition: map.onCameraMove != null,
+      cameraMoveThrottle: map.cameraMoveThrottle,
       zoomGesturesEnabled: map.zoomGesturesEnabled,
       myLocationEnabled: map.myLocationEnabled,
       myLocationButtonEnabled: map.myLocationButtonEnabled,
       padding: map.padding,
       indoorViewEnabled: map.indoorViewEnabled,
       trafficEnabled: map.trafficEnabled,
+      markerClusteringEnabled: map.markerClusteringEnabled,
+      markerCullingEnabled: map.markerCullingEnabled,
+      asyncMarkerIconDecodingEnabled: map.asyncMarkerIconDecodingEnabled,
+      liteModeEnabled: map.liteModeEnabled,
     );
   }
 
@@ -417,6 +514,8 @@ class _GoogleMapOptions {
 
   final bool trackCameraPosition;
 
+  final CameraMoveThrottle cameraMoveThrottle;
+
   final bool zoomGesturesEnabled;
 
   final bool myLocationEnabled;
@@ -429,6 +528,14 @@ class _GoogleMapOptions {
 
   final bool trafficEnabled;
 
+  final bool markerClusteringEnabled;
+
+  final bool markerCullingEnabled;
+
+  final bool asyncMarkerIconDecodingEnabled;
+
+  final bool liteModeEnabled;
+
   Map<String, dynamic> toMap() {
     final Map<String, dynamic> optionsMap = <String, dynamic>{};
 
@@ -448,6 +555,7 @@ class _GoogleMapOptions {
     addIfNonNull('tiltGesturesEnabled', tiltGesturesEnabled);
     addIfNonNull('zoomGesturesEnabled', zoomGesturesEnabled);
     addIfNonNull('trackCameraPosition', trackCameraPosition);
+    addIfNonNull('cameraMoveThrottle', cameraMoveThrottle?._toJson());
     addIfNonNull('myLocationEnabled', myLocationEnabled);
     addIfNonNull('myLocationButtonEnabled', myLocationButtonEnabled);
     addIfNonNull('padding', <double>[
@@ -458,6 +566,11 @@ class _GoogleMapOptions {
     ]);
     addIfNonNull('indoorEnabled', indoorViewEnabled);
     addIfNonNull('trafficEnabled', trafficEnabled);
+    addIfNonNull('markerClusteringEnabled', markerClusteringEnabled);
+    addIfNonNull('markerCullingEnabled', markerCullingEnabled);
+    addIfNonNull(
+        'asyncMarkerIconDecodingEnabled', asyncMarkerIconDecodingEnabled);
+    addIfNonNull('liteModeEnabled', liteModeEnabled);
     return optionsMap;
   }
 
@@ -121,3 +121,14 @@ class LatLngBounds {
   @override
   int get hashCode => hashValues(southwest, northeast);
 }
+
+/// Interleaves the latitudes and longitudes of [points], as sent to the
+/// platform side.
+Float64List _latLngsToFloat64List(List<LatLng> points) {
+  final Float64List result = Float64List(points.length * 2);
+  for (int i = 0; i < points.length; i++) {
+    result[2 * i] = points[i].latitude;
+    result[2 * i + 1] = points[i].longitude;
+  }
+  return result;
+}
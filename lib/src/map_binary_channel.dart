@@ -0,0 +1,130 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+part of google_maps_flutter;
+
+/// Compact binary messages for the high-frequency map traffic, sent next to
+/// the method channel. Android only.
+///
+/// Every message starts with a version byte and a type byte, followed by the
+/// little-endian payload of that type. See `MapBinaryChannel.java` for the
+/// layout of each type. Messages of another version or of an unknown type are
+/// dropped, so that either side can add types before the other handles them.
+class _MapBinaryChannel {
+  _MapBinaryChannel(int id, this._onCameraMove, this._onCameraIdle)
+      : _channel = BasicMessageChannel<ByteData>(
+            'plugins.flutter.io/google_maps_binary_$id', const BinaryCodec()) {
+    _channel.setMessageHandler(_handleMessage);
+  }
+
+  static const int _version = 1;
+  static const int _cameraMove = 1;
+  static const int _cameraIdle = 2;
+  static const int _markerPositions = 3;
+  static const int _polylinePoints = 4;
+
+  static const int _latLngLength = 16;
+
+  final BasicMessageChannel<ByteData> _channel;
+  final CameraPositionCallback _onCameraMove;
+  final VoidCallback _onCameraIdle;
+  bool _loggedDroppedMessage = false;
+
+  Future<ByteData> _handleMessage(ByteData message) async {
+    final int version = message.getUint8(0);
+    if (version != _version) {
+      _logDroppedMessage('unsupported version $version');
+      return null;
+    }
+    switch (message.getUint8(1)) {
+      case _cameraMove:
+        _onCameraMove(CameraPosition(
+          bearing: message.getFloat64(2, Endian.little),
+          target: LatLng(
+            message.getFloat64(10, Endian.little),
+            message.getFloat64(18, Endian.little),
+          ),
+          tilt: message.getFloat64(26, Endian.little),
+          zoom: message.getFloat64(34, Endian.little),
+        ));
+        break;
+      case _cameraIdle:
+        _onCameraIdle();
+        break;
+      default:
+        _logDroppedMessage('unknown type ${message.getUint8(1)}');
+    }
+    return null;
+  }
+
+  /// Logs the first dropped message in debug mode.
+  void _logDroppedMessage(String reason) {
+    assert(() {
+      if (!_loggedDroppedMessage) {
+        _loggedDroppedMessage = true;
+        debugPrint('Dropping map message of $reason');
+      }
+      return true;
+    }());
+  }
+
+  Future<void> sendMarkerPositions(Map<MarkerId, LatLng> positions) async {
+    final List<List<int>> markerIds = positions.keys
+        .map((MarkerId markerId) => utf8.encode(markerId.value))
+        .toList();
+    int length = 2 + 4;
+    for (List<int> markerId in markerIds) {
+      length += 2 + markerId.length + _latLngLength;
+    }
+    final _MessageWriter writer = _MessageWriter(length, _markerPositions)
+      ..putUint32(positions.length);
+    int i = 0;
+    for (LatLng position in positions.values) {
+      writer..putString(markerIds[i++])..putLatLng(position);
+    }
+    await _channel.send(writer.data);
+  }
+
+  Future<void> sendPolylinePoints(
+      PolylineId polylineId, List<LatLng> points) async {
+    final List<int> id = utf8.encode(polylineId.value);
+    final _MessageWriter writer = _MessageWriter(
+        2 + 2 + id.length + 4 + points.length * _latLngLength, _polylinePoints)
+      ..putString(id)
+      ..putUint32(points.length);
+    for (LatLng point in points) {
+      writer.putLatLng(point);
+    }
+    await _channel.send(writer.data);
+  }
+}
+
+/// Writes a message of a known length after the version and type header.
+class _MessageWriter {
+  _MessageWriter(int length, int type) : data = ByteData(length) {
+    data..setUint8(0, _MapBinaryChannel._version)..setUint8(1, type);
+  }
+
+  final ByteData data;
+  int _offset = 2;
+
+  void putUint32(int value) {
+    data.setUint32(_offset, value, Endian.little);
+    _offset += 4;
+  }
+
+  void putString(List<int> utf8Bytes) {
+    data.setUint16(_offset, utf8Bytes.length, Endian.little);
+    _offset += 2;
+    for (int byte in utf8Bytes) {
+      data.setUint8(_offset++, byte);
+    }
+  }
+
+  void putLatLng(LatLng position) {
+    data.setFloat64(_offset, position.latitude, Endian.little);
+    data.setFloat64(_offset + 8, position.longitude, Endian.little);
+    _offset += 16;
+  }
+}
@@ -0,0 +1,37 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+part of google_maps_flutter;
+
+/// Native map views created ahead of time, so that a [GoogleMap] shows up
+/// faster. Android only, calls on other platforms do nothing.
+///
+/// The pool is off until [prewarm] is called. Pooled views are created while
+/// the app is idle, one per idle pass, and the views of disposed maps go back
+/// to the pool while it has room. Maps with [GoogleMap.liteModeEnabled] never
+/// use pooled views.
+class MapViewPool {
+  MapViewPool._();
+
+  static const MethodChannel _channel =
+      MethodChannel('plugins.flutter.io/google_maps');
+
+  /// Keeps up to [count] map views ready for the next maps to be created.
+  static Future<void> prewarm({int count = 1}) async {
+    assert(count != null && count >= 0);
+    if (defaultTargetPlatform != TargetPlatform.android) {
+      return;
+    }
+    await _channel.invokeMethod<void>(
+        'mapViewPool#prewarm', <String, dynamic>{'count': count});
+  }
+
+  /// Releases the pooled views and turns the pool off.
+  static Future<void> clear() async {
+    if (defaultTargetPlatform != TargetPlatform.android) {
+      return;
+    }
+    await _channel.invokeMethod<void>('mapViewPool#clear');
+  }
+}
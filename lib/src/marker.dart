@@ -313,6 +313,28 @@ class Marker {
   }
 }
 
+/// A group of markers that the platform shows as a single cluster marker.
+///
+/// Only produced when [GoogleMap.markerClusteringEnabled] is true.
+@immutable
+class MarkerCluster {
+  MarkerCluster._fromJson(dynamic json)
+      : position = LatLng._fromJson(json['position']),
+        markerIds = List<MarkerId>.unmodifiable(json['markerIds']
+            .map<MarkerId>((dynamic id) => MarkerId(id)));
+
+  /// Geographical location of the cluster marker, the centroid of its members.
+  final LatLng position;
+
+  /// The markers hidden in this cluster.
+  final List<MarkerId> markerIds;
+
+  @override
+  String toString() {
+    return 'MarkerCluster{position: $position, markerIds: $markerIds}';
+  }
+}
+
 Map<MarkerId, Marker> _keyByMarkerId(Iterable<Marker> markers) {
   if (markers == null) {
     return <MarkerId, Marker>{};
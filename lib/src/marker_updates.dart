@@ -96,3 +96,54 @@ class _MarkerUpdates {
         'markersToChange: $markersToChange}';
   }
 }
+
+/// Statistics about a batch of marker updates applied on the platform side.
+///
+/// Only reported by Android; see [GoogleMapController.lastMarkerUpdateStats].
+class MarkerUpdateStats {
+  MarkerUpdateStats._fromMap(Map<dynamic, dynamic> map)
+      : added = map['added'],
+        changed = map['changed'],
+        unchanged = map['unchanged'],
+        removed = map['removed'],
+        duration = Duration(microseconds: map['durationMicros']);
+
+  /// Number of markers added to the map.
+  final int added;
+
+  /// Number of markers that had at least one property updated.
+  final int changed;
+
+  /// Number of markers sent as changed whose properties all matched the
+  /// platform state, so nothing was applied to them.
+  final int unchanged;
+
+  /// Number of markers removed from the map.
+  final int removed;
+
+  /// Time spent applying the whole batch on the platform main thread.
+  final Duration duration;
+
+  @override
+  String toString() {
+    return 'MarkerUpdateStats{added: $added, changed: $changed, '
+        'unchanged: $unchanged, removed: $removed, duration: $duration}';
+  }
+}
+
+/// A new position for a marker, streamed with
+/// [GoogleMapController.streamMarkerPositions].
+class MarkerPositionUpdate {
+  const MarkerPositionUpdate(this.markerId, this.position, {this.rotation})
+      : assert(markerId != null),
+        assert(position != null);
+
+  /// The marker to move.
+  final MarkerId markerId;
+
+  /// Where the marker moves to.
+  final LatLng position;
+
+  /// The new rotation in degrees, or null to keep the current one.
+  final double rotation;
+}
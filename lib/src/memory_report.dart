@@ -0,0 +1,65 @@
+// Copyright 2019 The Chromium Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+part of google_maps_flutter;
+
+/// What the platform side of a map holds on to. Android only.
+///
+/// See [GoogleMapController.getMemoryReport].
+@immutable
+class MapMemoryReport {
+  const MapMemoryReport({
+    @required this.retainedInitialOverlays,
+    @required this.markers,
+    @required this.polygons,
+    @required this.polylines,
+    @required this.circles,
+    @required this.overlayImageBytes,
+    @required this.appHeapUsedBytes,
+  });
+
+  MapMemoryReport._fromJson(Map<String, dynamic> json)
+      : retainedInitialOverlays = json['retainedInitialOverlays'],
+        markers = json['markers'],
+        polygons = json['polygons'],
+        polylines = json['polylines'],
+        circles = json['circles'],
+        overlayImageBytes = json['overlayImageBytes'],
+        appHeapUsedBytes = json['appHeapUsedBytes'];
+
+  /// The overlays the map was created with that are still held because they
+  /// were not added yet.
+  ///
+  /// Drops to zero once all of them are on the map.
+  final int retainedInitialOverlays;
+
+  /// The markers known to the map, including those culled or clustered away.
+  final int markers;
+
+  /// The polygons on the map.
+  final int polygons;
+
+  /// The polylines on the map, counting each once however many segments it
+  /// is drawn with.
+  final int polylines;
+
+  /// The circles on the map.
+  final int circles;
+
+  /// The size of the cached overlay image this map holds on to, or zero
+  /// when it holds none.
+  final int overlayImageBytes;
+
+  /// The Java heap in use by the whole app, for all maps and everything else.
+  ///
+  /// Unlike the other fields this is not specific to this map.
+  final int appHeapUsedBytes;
+
+  @override
+  String toString() => '$runtimeType(retainedInitialOverlays: '
+      '$retainedInitialOverlays, markers: $markers, polygons: $polygons, '
+      'polylines: $polylines, circles: $circles, '
+      'overlayImageBytes: $overlayImageBytes, '
+      'appHeapUsedBytes: $appHeapUsedBytes)';
+}
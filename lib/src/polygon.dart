@@ -171,11 +171,8 @@ class Polygon {
   int get hashCode => polygonId.hashCode;
 
   dynamic _pointsToJson() {
-    final List<dynamic> result = <dynamic>[];
-    for (final LatLng point in points) {
-      result.add(point._toJson());
-    }
-    return result;
+    // Interleaved latitudes and longitudes, sent as typed data.
+    return _latLngsToFloat64List(points);
   }
 }
 
@@ -220,11 +220,8 @@ class Polyline {
   int get hashCode => polylineId.hashCode;
 
   dynamic _pointsToJson() {
-    final List<dynamic> result = <dynamic>[];
-    for (final LatLng point in points) {
-      result.add(point._toJson());
-    }
-    return result;
+    // Interleaved latitudes and longitudes, sent as typed data.
+    return _latLngsToFloat64List(points);
   }
 
   dynamic _patternToJson() {
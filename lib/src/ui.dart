@@ -25,6 +25,16 @@ enum MapType {
   hybrid,
 }
 
+/// Image formats of [GoogleMapController.takeSnapshot].
+// Enum constants must be indexed to match the constants of MapSnapshotter.java.
+enum SnapshotFormat {
+  /// Lossless, [GoogleMapController.takeSnapshot]'s quality is ignored.
+  png,
+
+  /// Lossy at qualities below 100, and smaller than PNG.
+  webp,
+}
+
 /// Bounds for the map camera target.
 // Used with [GoogleMapOptions] to wrap a [LatLngBounds] value. This allows
 // distinguishing between specifying an unbounded target (null `LatLngBounds`)
@@ -98,6 +108,65 @@ class MinMaxZoomPreference {
   }
 }
 
+/// Limits how often [GoogleMap.onCameraMove] is called. Android only.
+///
+/// A move is reported once at least `1 / maxEventsPerSecond` seconds passed
+/// since the previous one, and only if the camera zoomed by [minZoomDelta],
+/// panned by [minPixelDelta] logical pixels, rotated, or tilted since then.
+/// Moves that were held back are coalesced into the position the camera
+/// settles at, which is reported right before [GoogleMap.onCameraIdle].
+class CameraMoveThrottle {
+  const CameraMoveThrottle({
+    this.maxEventsPerSecond = 0,
+    this.minZoomDelta = 0.0,
+    this.minPixelDelta = 0.0,
+    this.onlyOnIdle = false,
+  })  : assert(maxEventsPerSecond != null && maxEventsPerSecond >= 0),
+        assert(minZoomDelta != null && minZoomDelta >= 0.0),
+        assert(minPixelDelta != null && minPixelDelta >= 0.0),
+        assert(onlyOnIdle != null);
+
+  /// The maximum number of moves reported per second, or 0 for no limit.
+  final int maxEventsPerSecond;
+
+  /// The smallest zoom change that is reported.
+  final double minZoomDelta;
+
+  /// The smallest pan, in logical pixels, that is reported.
+  final double minPixelDelta;
+
+  /// True if only the position the camera settles at should be reported.
+  final bool onlyOnIdle;
+
+  /// Every move is reported.
+  static const CameraMoveThrottle unthrottled = CameraMoveThrottle();
+
+  dynamic _toJson() =>
+      <dynamic>[maxEventsPerSecond, minZoomDelta, minPixelDelta, onlyOnIdle];
+
+  @override
+  bool operator ==(dynamic other) {
+    if (identical(this, other)) return true;
+    if (runtimeType != other.runtimeType) return false;
+    final CameraMoveThrottle typedOther = other;
+    return maxEventsPerSecond == typedOther.maxEventsPerSecond &&
+        minZoomDelta == typedOther.minZoomDelta &&
+        minPixelDelta == typedOther.minPixelDelta &&
+        onlyOnIdle == typedOther.onlyOnIdle;
+  }
+
+  @override
+  int get hashCode =>
+      hashValues(maxEventsPerSecond, minZoomDelta, minPixelDelta, onlyOnIdle);
+
+  @override
+  String toString() {
+    return 'CameraMoveThrottle(maxEventsPerSecond: $maxEventsPerSecond, '
+        'minZoomDelta: $minZoomDelta, minPixelDelta: $minPixelDelta, '
+        'onlyOnIdle: $onlyOnIdle)';
+  }
+}
+
 /// Exception when a map style is invalid or was unable to be set.
 ///
 /// See also: `setStyle` on [GoogleMapController] for why this exception
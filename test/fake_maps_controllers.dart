@@ -11,6 +11,8 @@ import 'package:google_maps_flutter/google_maps_flutter.dart';
 class FakePlatformGoogleMap {
   FakePlatformGoogleMap(int id, Map<dynamic, dynamic> params) {
     cameraPosition = CameraPosition.fromMap(params['initialCameraPosition']);
+    initialOverlaysFrameBudgetMillis =
+        params['initialOverlaysFrameBudgetMillis'];
     channel = MethodChannel(
         'plugins.flutter.io/google_maps_$id', const StandardMethodCodec());
     channel.setMockMethodCallHandler(onMethodCall);
@@ -23,6 +25,9 @@ class FakePlatformGoogleMap {
 
   MethodChannel channel;
 
+  /// Every method call received from the controller, oldest first.
+  final List<MethodCall> methodCalls = <MethodCall>[];
+
   CameraPosition cameraPosition;
 
   bool compassEnabled;
@@ -35,6 +40,8 @@ class FakePlatformGoogleMap {
 
   MinMaxZoomPreference minMaxZoomPreference;
 
+  CameraMoveThrottle cameraMoveThrottle;
+
   bool rotateGesturesEnabled;
 
   bool scrollGesturesEnabled;
@@ -49,6 +56,16 @@ class FakePlatformGoogleMap {
 
   bool trafficEnabled;
 
+  bool markerClusteringEnabled;
+
+  bool markerCullingEnabled;
+
+  bool asyncMarkerIconDecodingEnabled;
+
+  bool liteModeEnabled;
+
+  int initialOverlaysFrameBudgetMillis;
+
   bool myLocationButtonEnabled;
 
   List<dynamic> padding;
@@ -78,6 +95,7 @@ class FakePlatformGoogleMap {
   Set<Circle> circlesToChange;
 
   Future<dynamic> onMethodCall(MethodCall call) {
+    methodCalls.add(call);
     switch (call.method) {
       case 'map#update':
         updateOptions(call.arguments['options']);
@@ -208,10 +226,10 @@ class FakePlatformGoogleMap {
     return result;
   }
 
-  List<LatLng> _deserializePoints(List<dynamic> points) {
-    return points.map<LatLng>((dynamic list) {
-      return LatLng(list[0], list[1]);
-    }).toList();
+  List<LatLng> _deserializePoints(Float64List points) {
+    return List<LatLng>.generate(points.length ~/ 2, (int i) {
+      return LatLng(points[2 * i], points[2 * i + 1]);
+    });
   }
 
   void updatePolylines(Map<dynamic, dynamic> polylineUpdates) {
@@ -334,6 +352,15 @@ class FakePlatformGoogleMap {
       minMaxZoomPreference =
           MinMaxZoomPreference(minMaxZoomList[0], minMaxZoomList[1]);
     }
+    if (options.containsKey('cameraMoveThrottle')) {
+      final List<dynamic> throttleList = options['cameraMoveThrottle'];
+      cameraMoveThrottle = CameraMoveThrottle(
+        maxEventsPerSecond: throttleList[0],
+        minZoomDelta: throttleList[1],
+        minPixelDelta: throttleList[2],
+        onlyOnIdle: throttleList[3],
+      );
+    }
     if (options.containsKey('rotateGesturesEnabled')) {
       rotateGesturesEnabled = options['rotateGesturesEnabled'];
     }
@@ -358,6 +385,19 @@ class FakePlatformGoogleMap {
     if (options.containsKey('trafficEnabled')) {
       trafficEnabled = options['trafficEnabled'];
     }
+    if (options.containsKey('markerClusteringEnabled')) {
+      markerClusteringEnabled = options['markerClusteringEnabled'];
+    }
+    if (options.containsKey('markerCullingEnabled')) {
+      markerCullingEnabled = options['markerCullingEnabled'];
+    }
+    if (options.containsKey('asyncMarkerIconDecodingEnabled')) {
+      asyncMarkerIconDecodingEnabled =
+          options['asyncMarkerIconDecodingEnabled'];
+    }
+    if (options.containsKey('liteModeEnabled')) {
+      liteModeEnabled = options['liteModeEnabled'];
+    }
     if (options.containsKey('padding')) {
       padding = options['padding'];
     }
@@ -2,6 +2,8 @@
 // Use of this source code is governed by a BSD-style license that can be
 // found in the LICENSE file.
 
+import 'dart:typed_data';
+
 import 'package:flutter/services.dart';
 import 'package:flutter/widgets.dart';
 import 'package:flutter_test/flutter_test.dart';
@@ -529,4 +531,278 @@ void main() {
 
     expect(platformGoogleMap.trafficEnabled, true);
   });
+
+  testWidgets('Can update marker clustering', (WidgetTester tester) async {
+    await tester.pumpWidget(
+      const Directionality(
+        textDirection: TextDirection.ltr,
+        child: GoogleMap(
+          initialCameraPosition: CameraPosition(target: LatLng(10.0, 15.0)),
+          markerClusteringEnabled: false,
+        ),
+      ),
+    );
+
+    final FakePlatformGoogleMap platformGoogleMap =
+        fakePlatformViewsController.lastCreatedView;
+
+    expect(platformGoogleMap.markerClusteringEnabled, false);
+
+    await tester.pumpWidget(
+      const Directionality(
+        textDirection: TextDirection.ltr,
+        child: GoogleMap(
+          initialCameraPosition: CameraPosition(target: LatLng(10.0, 15.0)),
+          markerClusteringEnabled: true,
+        ),
+      ),
+    );
+
+    expect(platformGoogleMap.markerClusteringEnabled, true);
+  });
+
+  testWidgets('Can update marker culling', (WidgetTester tester) async {
+    await tester.pumpWidget(
+      const Directionality(
+        textDirection: TextDirection.ltr,
+        child: GoogleMap(
+          initialCameraPosition: CameraPosition(target: LatLng(10.0, 15.0)),
+          markerCullingEnabled: false,
+        ),
+      ),
+    );
+
+    final FakePlatformGoogleMap platformGoogleMap =
+        fakePlatformViewsController.lastCreatedView;
+
+    expect(platformGoogleMap.markerCullingEnabled, false);
+
+    await tester.pumpWidget(
+      const Directionality(
+        textDirection: TextDirection.ltr,
+        child: GoogleMap(
+          initialCameraPosition: CameraPosition(target: LatLng(10.0, 15.0)),
+          markerCullingEnabled: true,
+        ),
+      ),
+    );
+
+    expect(platformGoogleMap.markerCullingEnabled, true);
+  });
+
+  testWidgets('Can update async marker icon decoding',
+      (WidgetTester tester) async {
+    await tester.pumpWidget(
+      const Directionality(
+        textDirection: TextDirection.ltr,
+        child: GoogleMap(
+          initialCameraPosition: CameraPosition(target: LatLng(10.0, 15.0)),
+          asyncMarkerIconDecodingEnabled: false,
+        ),
+      ),
+    );
+
+    final FakePlatformGoogleMap platformGoogleMap =
+        fakePlatformViewsController.lastCreatedView;
+
+    expect(platformGoogleMap.asyncMarkerIconDecodingEnabled, false);
+
+    await tester.pumpWidget(
+      const Directionality(
+        textDirection: TextDirection.ltr,
+        child: GoogleMap(
+          initialCameraPosition: CameraPosition(target: LatLng(10.0, 15.0)),
+          asyncMarkerIconDecodingEnabled: true,
+        ),
+      ),
+    );
+
+    expect(platformGoogleMap.asyncMarkerIconDecodingEnabled, true);
+  });
+
+  testWidgets('Can update cameraMoveThrottle', (WidgetTester tester) async {
+    await tester.pumpWidget(
+      const Directionality(
+        textDirection: TextDirection.ltr,
+        child: GoogleMap(
+          initialCameraPosition: CameraPosition(target: LatLng(10.0, 15.0)),
+        ),
+      ),
+    );
+
+    final FakePlatformGoogleMap platformGoogleMap =
+        fakePlatformViewsController.lastCreatedView;
+
+    expect(platformGoogleMap.cameraMoveThrottle,
+        CameraMoveThrottle.unthrottled);
+
+    await tester.pumpWidget(
+      const Directionality(
+        textDirection: TextDirection.ltr,
+        child: GoogleMap(
+          initialCameraPosition: CameraPosition(target: LatLng(10.0, 15.0)),
+          cameraMoveThrottle: CameraMoveThrottle(
+            maxEventsPerSecond: 30,
+            minPixelDelta: 4.0,
+          ),
+        ),
+      ),
+    );
+
+    expect(
+        platformGoogleMap.cameraMoveThrottle,
+        const CameraMoveThrottle(
+          maxEventsPerSecond: 30,
+          minPixelDelta: 4.0,
+        ));
+  });
+
+  testWidgets('Passes initialOverlaysFrameBudget at creation',
+      (WidgetTester tester) async {
+    await tester.pumpWidget(
+      const Directionality(
+        textDirection: TextDirection.ltr,
+        child: GoogleMap(
+          initialCameraPosition: CameraPosition(target: LatLng(10.0, 15.0)),
+          initialOverlaysFrameBudget: Duration(milliseconds: 8),
+        ),
+      ),
+    );
+
+    final FakePlatformGoogleMap platformGoogleMap =
+        fakePlatformViewsController.lastCreatedView;
+
+    expect(platformGoogleMap.initialOverlaysFrameBudgetMillis, 8);
+  });
+
+  testWidgets('Passes liteModeEnabled at creation',
+      (WidgetTester tester) async {
+    await tester.pumpWidget(
+      const Directionality(
+        textDirection: TextDirection.ltr,
+        child: GoogleMap(
+          initialCameraPosition: CameraPosition(target: LatLng(10.0, 15.0)),
+          liteModeEnabled: true,
+        ),
+      ),
+    );
+
+    final FakePlatformGoogleMap platformGoogleMap =
+        fakePlatformViewsController.lastCreatedView;
+
+    expect(platformGoogleMap.liteModeEnabled, true);
+  });
+
+  testWidgets('Sends appended polyline points', (WidgetTester tester) async {
+    GoogleMapController controller;
+    await tester.pumpWidget(
+      Directionality(
+        textDirection: TextDirection.ltr,
+        child: GoogleMap(
+          initialCameraPosition:
+              const CameraPosition(target: LatLng(10.0, 15.0)),
+          onMapCreated: (GoogleMapController value) => controller = value,
+        ),
+      ),
+    );
+    await tester.pump();
+
+    await controller.appendPolylinePoints(
+      const PolylineId('polyline_1'),
+      const <LatLng>[LatLng(1.0, 2.0), LatLng(3.0, 4.0)],
+      maxSegmentPoints: 500,
+    );
+
+    final FakePlatformGoogleMap platformGoogleMap =
+        fakePlatformViewsController.lastCreatedView;
+    final MethodCall call = platformGoogleMap.methodCalls.last;
+    expect(call.method, 'polylines#appendPoints');
+    expect(call.arguments['polylineId'], 'polyline_1');
+    expect(call.arguments['points'],
+        Float64List.fromList(<double>[1.0, 2.0, 3.0, 4.0]));
+    expect(call.arguments['maxSegmentPoints'], 500);
+  });
+
+  testWidgets('Sends snapshot options', (WidgetTester tester) async {
+    GoogleMapController controller;
+    await tester.pumpWidget(
+      Directionality(
+        textDirection: TextDirection.ltr,
+        child: GoogleMap(
+          initialCameraPosition:
+              const CameraPosition(target: LatLng(10.0, 15.0)),
+          onMapCreated: (GoogleMapController value) => controller = value,
+        ),
+      ),
+    );
+    await tester.pump();
+
+    await controller.takeSnapshot(
+      format: SnapshotFormat.webp,
+      quality: 80,
+      width: 320,
+      height: 240,
+    );
+
+    final FakePlatformGoogleMap platformGoogleMap =
+        fakePlatformViewsController.lastCreatedView;
+    final MethodCall call = platformGoogleMap.methodCalls.last;
+    expect(call.method, 'map#takeSnapshot');
+    expect(call.arguments, <String, dynamic>{
+      'format': SnapshotFormat.webp.index,
+      'quality': 80,
+      'width': 320,
+      'height': 240,
+    });
+  });
+
+  testWidgets('Resends streamed marker ids after markers are removed',
+      (WidgetTester tester) async {
+    const MarkerId markerId1 = MarkerId('marker_1');
+    const MarkerId markerId2 = MarkerId('marker_2');
+    const MarkerPositionUpdate update =
+        MarkerPositionUpdate(markerId1, LatLng(1.0, 2.0));
+    GoogleMapController controller;
+    Widget buildMap(Set<Marker> markers) {
+      return Directionality(
+        textDirection: TextDirection.ltr,
+        child: GoogleMap(
+          initialCameraPosition:
+              const CameraPosition(target: LatLng(10.0, 15.0)),
+          markers: markers,
+          onMapCreated: (GoogleMapController value) => controller = value,
+        ),
+      );
+    }
+
+    await tester.pumpWidget(buildMap(<Marker>{
+      const Marker(markerId: markerId1),
+      const Marker(markerId: markerId2),
+    }));
+    await tester.pump();
+    final FakePlatformGoogleMap platformGoogleMap =
+        fakePlatformViewsController.lastCreatedView;
+
+    await controller.streamMarkerPositions(<MarkerPositionUpdate>[update]);
+    expect(platformGoogleMap.methodCalls.last.arguments['newMarkerIds'],
+        <String>['marker_1']);
+
+    await controller.streamMarkerPositions(<MarkerPositionUpdate>[update]);
+    expect(platformGoogleMap.methodCalls.last.arguments['newMarkerIds'],
+        isEmpty);
+
+    await tester.pumpWidget(buildMap(<Marker>{
+      const Marker(markerId: markerId1),
+    }));
+    await tester.pump();
+    expect(platformGoogleMap.markerIdsToRemove, <MarkerId>{markerId2});
+
+    await controller.streamMarkerPositions(<MarkerPositionUpdate>[update]);
+    final MethodCall call = platformGoogleMap.methodCalls.last;
+    expect(call.method, 'markers#streamPositions');
+    expect(call.arguments['newMarkerIds'], <String>['marker_1']);
+    final Float64List positions = call.arguments['positions'];
+    expect(positions.sublist(0, 3), <double>[0.0, 1.0, 2.0]);
+    expect(positions[3].isNaN, isTrue);
+  });
 }